@@ -0,0 +1,37 @@
+package com.borjas.auth;
+
+import com.borjas.exeption.RequestValidationException;
+import com.borjas.jwt.JWTUtil;
+import com.borjas.jwt.TokenRevocationService;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("api/v1/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AllArgsConstructor
+public class AuthenticationController {
+    private final AuthenticationService authenticationService;
+    private final JWTUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+
+    @PostMapping("/login")
+    public ResponseEntity<AuthenticationResponse> login(@RequestBody AuthenticationRequest request) {
+        AuthenticationResponse response = authenticationService.login(request);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AUTHORIZATION, response.token())
+                .body(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
+        if (!authHeader.startsWith("Bearer ")) {
+            throw new RequestValidationException("bearer token required");
+        }
+        tokenRevocationService.revoke(jwtUtil.verify(authHeader.substring(7)));
+        return ResponseEntity.noContent().build();
+    }
+}
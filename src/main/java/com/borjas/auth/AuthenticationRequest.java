@@ -0,0 +1,7 @@
+package com.borjas.auth;
+
+public record AuthenticationRequest(
+        String username,
+        String password
+) {
+}
@@ -0,0 +1,9 @@
+package com.borjas.auth;
+
+import com.borjas.customer.CustomerDTO;
+
+public record AuthenticationResponse(
+        String token,
+        CustomerDTO customerDTO
+) {
+}
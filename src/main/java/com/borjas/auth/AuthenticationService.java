@@ -0,0 +1,34 @@
+package com.borjas.auth;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerDTO;
+import com.borjas.customer.CustomerDTOMapper;
+import com.borjas.jwt.JWTUtil;
+import com.borjas.security.BoundedPasswordExecutor;
+import lombok.AllArgsConstructor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+@Service
+@AllArgsConstructor
+public class AuthenticationService {
+    private final AuthenticationManager authenticationManager;
+    private final BoundedPasswordExecutor passwordExecutor;
+    private final CustomerDTOMapper customerDTOMapper;
+    private final JWTUtil jwtUtil;
+
+    public AuthenticationResponse login(AuthenticationRequest request) {
+        // the password check is BCrypt, keep it off the request threads
+        Authentication authentication = passwordExecutor.execute(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.username(), request.password())
+        ));
+
+        CustomerDTO customer = customerDTOMapper.apply((Customer) authentication.getPrincipal());
+        // the token carries what the customer may do, nothing more
+        String token = jwtUtil.issueToken(customer.username(), customer.id(), customer.roles(),
+                customer.roles().toArray(String[]::new));
+        return new AuthenticationResponse(token, customer);
+    }
+}
@@ -0,0 +1,45 @@
+package com.borjas.auth;
+
+import com.borjas.exeption.RequestValidationException;
+import com.borjas.jwt.JWTUtil;
+import com.borjas.jwt.TokenRevocationService;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Login is bounded by the password pool and logout is a rare write, so both reuse the
+ * blocking services off the event loop rather than duplicating them on R2DBC.
+ */
+@RestController
+@RequestMapping("api/v1/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveAuthenticationController {
+    private final AuthenticationService authenticationService;
+    private final JWTUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthenticationResponse>> login(@RequestBody AuthenticationRequest request) {
+        return Mono.fromCallable(() -> authenticationService.login(request))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(response -> ResponseEntity.ok()
+                        .header(HttpHeaders.AUTHORIZATION, response.token())
+                        .body(response));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
+        if (!authHeader.startsWith("Bearer ")) {
+            return Mono.error(new RequestValidationException("bearer token required"));
+        }
+        return Mono.fromRunnable(() -> tokenRevocationService.revoke(jwtUtil.verify(authHeader.substring(7))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
@@ -0,0 +1,51 @@
+package com.borjas.concurrency;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves every request, and every async MVC task such as the customer export, on its
+ * own virtual thread. Request concurrency is then bounded by Tomcat's connection limit
+ * and the Hikari pool rather than by the worker pool. BCrypt stays on
+ * {@link com.borjas.security.BoundedPasswordExecutor}, which bounds CPU-heavy work.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(
+            @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor,
+            ObjectProvider<TaskDecorator> taskDecorator) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                TaskExecutorAdapter taskExecutor = new TaskExecutorAdapter(virtualThreadExecutor);
+                // the same decorator Boot applies to its own task executor
+                taskDecorator.ifUnique(taskExecutor::setTaskDecorator);
+                configurer.setTaskExecutor(taskExecutor);
+            }
+        };
+    }
+}
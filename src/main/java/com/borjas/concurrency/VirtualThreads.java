@@ -0,0 +1,44 @@
+package com.borjas.concurrency;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads while the build still targets JDK 17.
+ * <p>
+ * The executor factory is looked up reflectively, so the same jar runs on 17 with
+ * platform threads and on 21+ with virtual threads when the mode is switched on.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return factoryMethod() != null;
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method factory = factoryMethod();
+        if (factory == null) {
+            throw new IllegalStateException(
+                    "virtual threads need JDK 21 or newer, running on %s".formatted(Runtime.version())
+            );
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("could not create a virtual thread executor", e);
+        }
+    }
+
+    private static Method factoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
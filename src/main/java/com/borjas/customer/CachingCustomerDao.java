@@ -0,0 +1,154 @@
+package com.borjas.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of another {@link CustomerDao}.
+ * <p>
+ * Customers are cached by id, including misses. Writes go to the delegate first and
+ * then invalidate the ids they touched; writes that bypass this DAO, such as the
+ * reactive one, invalidate through {@link CustomerChangedEvent}. Changes made on other
+ * instances are seen once the entry expires, so the ttl is this cache's own staleness bound.
+ * <p>
+ * Lookups by email serve authentication and always go to the delegate, so a customer
+ * changed or deleted on another instance cannot log in from a stale entry here. Caching
+ * them would mean an email change invalidating both the old and the new email: the old
+ * key would otherwise still log in as the customer, and the new one would keep serving
+ * a cached miss.
+ */
+public class CachingCustomerDao implements CustomerDao, MeterBinder {
+
+    private final CustomerDao delegate;
+    // Optional.empty() entries remember ids that do not exist
+    private final Cache<Long, Optional<Customer>> customersById;
+
+    public CachingCustomerDao(CustomerDao delegate, long maximumSize, Duration ttl) {
+        this(delegate, maximumSize, ttl, Ticker.systemTicker());
+    }
+
+    CachingCustomerDao(CustomerDao delegate, long maximumSize, Duration ttl, Ticker ticker) {
+        this.delegate = delegate;
+        this.customersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return delegate.selectCustomers(afterId, limit);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        delegate.forEachCustomer(action);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        // loading inside the cache makes a concurrent invalidate wait for the load and
+        // then remove it, so a value read before a write never outlives that write
+        return customersById.get(customerId, id -> delegate.selectCustomerById(id).map(Customer::copy))
+                .map(Customer::copy);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+        invalidate(customer.getId());
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        delegate.insertCustomers(customers);
+        customers.forEach(customer -> invalidate(customer.getId()));
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return delegate.existsCustomerWithEmail(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return delegate.selectExistingEmails(emails);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return selectCustomerById(id).isPresent();
+    }
+
+    @Override
+    public boolean deleteCustomerById(Long customerId) {
+        try {
+            return delegate.deleteCustomerById(customerId);
+        } finally {
+            invalidate(customerId);
+        }
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer update) {
+        try {
+            return delegate.updateCustomer(update);
+        } finally {
+            invalidate(update.getId());
+        }
+    }
+
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        try {
+            return delegate.updatePassword(customerId, currentPassword, newPassword);
+        } finally {
+            invalidate(customerId);
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        return delegate.selectUserByEmail(email);
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        invalidate(event.customerId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, customersById, "customer.dao.by-id");
+    }
+
+    public CacheStats customersByIdStats() {
+        return customersById.stats();
+    }
+
+    private void invalidate(Long customerId) {
+        if (customerId != null) {
+            customersById.invalidate(customerId);
+        }
+    }
+}
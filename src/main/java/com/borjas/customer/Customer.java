@@ -2,6 +2,7 @@ package com.borjas.customer;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,6 +14,7 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
 @Table(
         name = "customer",
         uniqueConstraints = {
@@ -28,7 +30,7 @@ public class Customer implements UserDetails {
     @SequenceGenerator(
             name = "customer_id_seq",
             sequenceName = "customer_id_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -56,6 +58,12 @@ public class Customer implements UserDetails {
     )
     private String password;
 
+    @Version
+    @Column(
+            nullable = false
+    )
+    private Long version;
+
     public Customer() {
     }
 
@@ -74,6 +82,38 @@ public class Customer implements UserDetails {
         this.age = age;
     }
 
+    Customer copy() {
+        Customer copy = new Customer(id, name, email, password, age);
+        copy.setVersion(version);
+        return copy;
+    }
+
+    boolean applyUpdate(Customer update) {
+        boolean changes = false;
+
+        if (update.getName() != null && !update.getName().equals(name)) {
+            name = update.getName();
+            changes = true;
+        }
+
+        if (update.getEmail() != null && !update.getEmail().equals(email)) {
+            email = update.getEmail();
+            changes = true;
+        }
+
+        if (update.getAge() != null && !update.getAge().equals(age)) {
+            age = update.getAge();
+            changes = true;
+        }
+
+        if (update.getPassword() != null && !update.getPassword().equals(password)) {
+            password = update.getPassword();
+            changes = true;
+        }
+
+        return changes;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_USER"));
@@ -0,0 +1,11 @@
+package com.borjas.customer;
+
+import java.util.List;
+
+public interface CustomerBatchInsertRepository {
+    /**
+     * Inserts the customers whose email is still free and sets their id and version;
+     * the others are skipped and keep a null id.
+     */
+    void insertSkippingTakenEmails(List<Customer> customers);
+}
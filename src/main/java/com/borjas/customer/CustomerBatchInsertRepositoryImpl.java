@@ -0,0 +1,58 @@
+package com.borjas.customer;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+class CustomerBatchInsertRepositoryImpl implements CustomerBatchInsertRepository {
+    private final EntityManager entityManager;
+
+    @Override
+    public void insertSkippingTakenEmails(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer(id, name, email, password, age)
+                SELECT * FROM unnest(?::bigint[], ?::text[], ?::text[], ?::text[], ?::int[])
+                ON CONFLICT DO NOTHING
+                RETURNING id, version
+                """;
+
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        // ids come from Hibernate's own optimizer so they never collide with the ranges save() hands out
+        BeforeExecutionGenerator idGenerator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(Customer.class)
+                .getGenerator();
+
+        Map<Long, Customer> byId = new HashMap<>();
+        for (Customer customer : customers) {
+            customer.setId((Long) idGenerator.generate(session, customer, null, EventType.INSERT));
+            byId.put(customer.getId(), customer);
+        }
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, connection.createArrayOf("bigint", customers.stream().map(Customer::getId).toArray()));
+                statement.setArray(2, connection.createArrayOf("text", customers.stream().map(Customer::getName).toArray()));
+                statement.setArray(3, connection.createArrayOf("text", customers.stream().map(Customer::getEmail).toArray()));
+                statement.setArray(4, connection.createArrayOf("text", customers.stream().map(Customer::getPassword).toArray()));
+                statement.setArray(5, connection.createArrayOf("int", customers.stream().map(Customer::getAge).toArray()));
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        byId.remove(rs.getLong("id")).setVersion(rs.getLong("version"));
+                    }
+                }
+            }
+        });
+
+        byId.values().forEach(skipped -> skipped.setId(null));
+    }
+}
@@ -0,0 +1,4 @@
+package com.borjas.customer;
+
+public record CustomerChangedEvent(Long customerId) {
+}
@@ -1,39 +1,72 @@
 package com.borjas.customer;
 
+import com.borjas.exeption.RequestValidationException;
 import com.borjas.jwt.JWTUtil;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class CustomerController {
     private final CustomerService customerService;
+    private final CustomerExportService customerExportService;
     private final JWTUtil jwtUtil;
 
     @GetMapping
-    public List<CustomerDTO> getCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<CustomerDTO>> getCustomers(@RequestParam(value = "after", required = false) Long after,
+                                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.getCustomers(after, limit).toResponse();
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CustomerExportFormat exportFormat = CustomerExportFormat.fromValue(format);
+        boolean gzip = CustomerExportService.acceptsGzip(acceptEncoding);
+
+        // caches must not hand a gzipped body to a client that did not ask for one
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(outputStream ->
+                customerExportService.exportCustomers(exportFormat, gzip, outputStream));
     }
 
     @GetMapping("/{customerId}")
-    public CustomerDTO getCustomer(@PathVariable("customerId") Long customerId) {
-        return customerService.getCustomer(customerId);
+    public ResponseEntity<CustomerDTO> getCustomer(@PathVariable("customerId") Long customerId) {
+        CustomerDTO customer = customerService.getCustomer(customerId);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(customer.version()))
+                .body(customer);
     }
 
     @PostMapping
     public ResponseEntity<?> registerCustomer(@RequestBody CustomerRegistrationRequest request) {
-        customerService.addCustomer(request);
-        String jwtToken = jwtUtil.issueToken(request.email(), "ROLE_ADMIN");
+        CustomerDTO customer = customerService.addCustomer(request);
+        String jwtToken = jwtUtil.issueToken(customer.username(), customer.id(), customer.roles(), "ROLE_ADMIN");
         return ResponseEntity.ok()
                 .header(HttpHeaders.AUTHORIZATION, jwtToken)
                 .build();
     }
 
+    @PostMapping("/bulk")
+    public List<CustomerRegistrationResult> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
     @DeleteMapping("/{customerId}")
     public void deleteCustomer(@PathVariable("customerId") Long customerId) {
         customerService.deleteCustomerById(customerId);
@@ -41,7 +74,26 @@ public class CustomerController {
 
     @PutMapping("/{customerId}")
     public void updateCustomer(@PathVariable("customerId") Long customerId,
-                               @RequestBody CustomerUpdateRequest updateRequest) {
-        customerService.updateCustomer(customerId, updateRequest);
+                               @RequestBody CustomerUpdateRequest updateRequest,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        customerService.updateCustomer(customerId, updateRequest, parseVersion(ifMatch));
+    }
+
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
+        }
+        version = version.replace("\"", "");
+
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            throw new RequestValidationException("invalid If-Match header [%s]".formatted(ifMatch));
+        }
     }
 }
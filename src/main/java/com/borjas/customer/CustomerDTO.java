@@ -8,6 +8,7 @@ public record CustomerDTO(
         String email,
         Integer age,
         List<String> roles,
-        String username
+        String username,
+        Long version
 ) {
 }
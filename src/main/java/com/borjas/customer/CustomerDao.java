@@ -1,15 +1,31 @@
 package com.borjas.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
     List<Customer> selectAllCustomers();
+    List<Customer> selectCustomers(Long afterId, int limit);
+    void forEachCustomer(Consumer<Customer> action);
     Optional<Customer> selectCustomerById(Long customerId);
     void insertCustomer(Customer customer);
+    /**
+     * Inserts the customers whose email is free and sets their ids; the ones whose
+     * email is already taken are skipped and keep a null id.
+     */
+    void insertCustomers(List<Customer> customers);
     boolean existsCustomerWithEmail(String email);
+    Set<String> selectExistingEmails(Collection<String> emails);
     boolean existsCustomerWithId(Long id);
-    void deleteCustomerById(Long customerId);
-    void updateCustomer(Customer customer);
+    boolean deleteCustomerById(Long customerId);
+    Optional<Customer> updateCustomer(Customer update);
+    /**
+     * Swaps the password hash while it is still {@code currentPassword}, without a new
+     * version: a rehash changes nothing the customer or an ETag can see.
+     */
+    boolean updatePassword(Long customerId, String currentPassword, String newPassword);
     Optional<Customer> selectUserByEmail(String email);
 }
@@ -0,0 +1,46 @@
+package com.borjas.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CustomerDaoConfig {
+
+    @Bean("customerDao")
+    public CustomerDao customerDao(BeanFactory beanFactory,
+                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${customer.dao.implementation:jpa}") String implementation,
+                                   @Value("${customer.dao.metrics.enabled:true}") boolean metricsEnabled,
+                                   @Value("${customer.dao.metrics.sample-rate:1.0}") double sampleRate,
+                                   @Value("${customer.dao.cache.enabled:false}") boolean cacheEnabled,
+                                   @Value("${customer.dao.cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${customer.dao.cache.ttl:30s}") Duration ttl,
+                                   @Value("${customer.snapshot.enabled:false}") boolean snapshotEnabled) {
+        if ("snapshot".equals(implementation) && !snapshotEnabled) {
+            // nothing would ever load it, every read would come back empty
+            throw new IllegalStateException("customer.dao.implementation snapshot needs customer.snapshot.enabled");
+        }
+        CustomerDao customerDao = beanFactory.getBean(implementation, CustomerDao.class);
+        if (metricsEnabled) {
+            // inside the cache, so the metrics show what the implementation itself does
+            InstrumentedCustomerDao instrumentedCustomerDao = new InstrumentedCustomerDao(customerDao, implementation, sampleRate);
+            meterRegistry.ifAvailable(instrumentedCustomerDao::bindTo);
+            customerDao = instrumentedCustomerDao;
+        }
+        if (!cacheEnabled) {
+            return customerDao;
+        }
+
+        // other instances only invalidate their own cache, so the ttl is how long their
+        // changes can go unseen here
+        CachingCustomerDao cachingCustomerDao = new CachingCustomerDao(customerDao, maximumSize, ttl);
+        meterRegistry.ifAvailable(cachingCustomerDao::bindTo);
+        return cachingCustomerDao;
+    }
+}
@@ -0,0 +1,100 @@
+package com.borjas.customer;
+
+import com.borjas.customer.CustomerShardDirectory.EmailClaim;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drops directory claims that no customer on the shards backs. The sharded DAO claims
+ * an email before it writes the shard and releases it after a delete or an email
+ * change, so a crash in between leaves the email taken by nobody; this sweep, at
+ * startup and then every {@code customer.sharding.reconcile.interval}, gives it back.
+ */
+@Slf4j
+public class CustomerEmailClaimReconciler {
+    private static final int BATCH_SIZE = 500;
+
+    private final CustomerShardDirectory directory;
+    private final List<JdbcTemplate> shards;
+    private final Duration grace;
+
+    public CustomerEmailClaimReconciler(CustomerShardDirectory directory,
+                                        CustomerShardedDataAccessService shardedCustomerDao,
+                                        Duration grace) {
+        this.directory = directory;
+        this.shards = shardedCustomerDao.shards();
+        this.grace = grace;
+    }
+
+    /**
+     * Claims younger than the grace period may belong to a write still in flight, and
+     * claims in a moving bucket are left for the next run, when the bucket has settled.
+     */
+    @Scheduled(fixedDelayString = "${customer.sharding.reconcile.interval:PT1H}")
+    public int reconcile() {
+        int released = 0;
+        String afterEmail = "";
+        List<EmailClaim> batch;
+        do {
+            batch = directory.claimsOlderThan(grace, afterEmail, BATCH_SIZE);
+            List<EmailClaim> orphans = orphans(batch);
+            if (!orphans.isEmpty()) {
+                directory.releaseClaims(orphans);
+                released += orphans.size();
+            }
+            if (!batch.isEmpty()) {
+                afterEmail = batch.get(batch.size() - 1).email();
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (released > 0) {
+            log.warn("Released {} customer email claims that no shard backed", released);
+        }
+        return released;
+    }
+
+    private List<EmailClaim> orphans(List<EmailClaim> claims) {
+        List<EmailClaim> orphans = new ArrayList<>();
+        Map<Integer, List<EmailClaim>> byShard = new HashMap<>();
+        for (EmailClaim claim : claims) {
+            if (!directory.hasBucket(claim.customerId())) {
+                orphans.add(claim);
+            } else if (!directory.isMoving(CustomerShardDirectory.bucketOf(claim.customerId()))) {
+                byShard.computeIfAbsent(directory.shardOf(claim.customerId()), shard -> new ArrayList<>()).add(claim);
+            }
+        }
+
+        byShard.forEach((shard, inShard) -> {
+            Set<EmailClaim> backed = backed(shards.get(shard), inShard);
+            inShard.stream()
+                    .filter(claim -> !backed.contains(claim))
+                    .forEach(orphans::add);
+        });
+        return orphans;
+    }
+
+    private static Set<EmailClaim> backed(JdbcTemplate shard, List<EmailClaim> claims) {
+        var sql = """
+                SELECT id, email
+                FROM customer
+                WHERE id = ANY(?)
+                """;
+
+        return new HashSet<>(shard.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint",
+                    claims.stream().map(EmailClaim::customerId).toArray()));
+            return statement;
+        }, (rs, rowNum) -> new EmailClaim(rs.getString("email"), rs.getLong("id"))));
+    }
+}
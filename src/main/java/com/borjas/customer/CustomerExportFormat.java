@@ -0,0 +1,28 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.RequestValidationException;
+import org.springframework.http.MediaType;
+
+public enum CustomerExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    JSON(MediaType.APPLICATION_JSON);
+
+    private final MediaType mediaType;
+
+    CustomerExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static CustomerExportFormat fromValue(String value) {
+        for (CustomerExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new RequestValidationException("unsupported export format [%s]".formatted(value));
+    }
+}
@@ -0,0 +1,116 @@
+package com.borjas.customer;
+
+import com.borjas.datasource.LongConnectionHolds;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class CustomerExportService {
+    // flush regularly so a slow client blocks the cursor instead of letting buffers grow
+    private static final int FLUSH_EVERY = 500;
+
+    private final CustomerDao customerDao;
+    private final CustomerDTOMapper customerDTOMapper;
+    private final ObjectMapper objectMapper;
+
+    public CustomerExportService(@Qualifier("customerDao") CustomerDao customerDao, CustomerDTOMapper customerDTOMapper, ObjectMapper objectMapper) {
+        this.customerDao = customerDao;
+        this.customerDTOMapper = customerDTOMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads an Accept-Encoding header the way RFC 9110 does: gzip (or x-gzip) named with
+     * a non-zero q-value, or a non-zero {@code *} when gzip is not named at all.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        Double effective = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return effective != null && effective > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    // a malformed weight is not a refusal
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public void exportCustomers(CustomerExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+        if (!gzip) {
+            exportCustomers(format, outputStream);
+            return;
+        }
+
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 8192, true)) {
+            exportCustomers(format, gzipOutputStream);
+        }
+    }
+
+    private void exportCustomers(CustomerExportFormat format, OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        if (format == CustomerExportFormat.JSON) {
+            generator.writeStartArray();
+        } else {
+            // root values are separated by a space by default, every line would start with one
+            generator.setRootValueSeparator(null);
+        }
+
+        int[] written = {0};
+        try {
+            // the cursor keeps its connection for as long as the client takes to read
+            LongConnectionHolds.expect(() -> customerDao.forEachCustomer(customer -> {
+                try {
+                    generator.writeObject(customerDTOMapper.apply(customer));
+                    if (format == CustomerExportFormat.NDJSON) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (format == CustomerExportFormat.JSON) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+}
@@ -1,13 +1,29 @@
 package com.borjas.customer;
 
+import com.borjas.exeption.DuplicateResourceException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao {
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 500;
 
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
@@ -20,17 +36,49 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     @Override
     public List<Customer> selectAllCustomers() {
         var sql = """
-                SELECT id, name, email, password, age
+                SELECT id, name, email, password, age, version
                 FROM customer
                 """;
 
         return jdbcTemplate.query(sql, customerRowMapper);
     }
 
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+
+        return jdbcTemplate.query(sql, customerRowMapper, afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                ORDER BY id
+                """;
+
+        // postgres only uses a server-side cursor with a fetch size inside a transaction
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+            );
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(customerRowMapper.mapRow(rs, rs.getRow())));
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Long customerId) {
         var sql = """
-                SELECT id, name, email, password, age
+                SELECT id, name, email, password, age, version
                 FROM customer
                 WHERE id = ?
                 """;
@@ -45,11 +93,55 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
         var sql = """
                 INSERT INTO customer(name, email, password, age)
                 VALUES (?, ?, ?, ?)
+                ON CONFLICT DO NOTHING
+                RETURNING id, version
+                """;
+
+        List<Customer> inserted;
+        try {
+            inserted = jdbcTemplate.query(sql, (rs, rowNum) -> {
+                customer.setId(rs.getLong("id"));
+                customer.setVersion(rs.getLong("version"));
+                return customer;
+            }, customer.getName(), customer.getEmail(), customer.getPassword(), customer.getAge());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException("email already taken");
+        }
+
+        if (inserted.isEmpty()) {
+            throw new DuplicateResourceException("email already taken");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void insertCustomers(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer(name, email, password, age)
+                SELECT * FROM unnest(?::text[], ?::text[], ?::text[], ?::int[])
+                ON CONFLICT DO NOTHING
+                RETURNING id, email, version
                 """;
 
-        int result = jdbcTemplate.update(sql, customer.getName(), customer.getEmail(), customer.getPassword(), customer.getAge());
+        for (int from = 0; from < customers.size(); from += INSERT_BATCH_SIZE) {
+            List<Customer> batch = customers.subList(from, Math.min(from + INSERT_BATCH_SIZE, customers.size()));
+            Map<String, Customer> byEmail = new HashMap<>();
+            batch.forEach(customer -> byEmail.putIfAbsent(customer.getEmail(), customer));
 
-        System.out.println("jdbcTemplate.update = " + result);
+            // customers whose email is taken get no row back and keep a null id
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setArray(1, connection.createArrayOf("text", batch.stream().map(Customer::getName).toArray()));
+                statement.setArray(2, connection.createArrayOf("text", batch.stream().map(Customer::getEmail).toArray()));
+                statement.setArray(3, connection.createArrayOf("text", batch.stream().map(Customer::getPassword).toArray()));
+                statement.setArray(4, connection.createArrayOf("int", batch.stream().map(Customer::getAge).toArray()));
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                Customer customer = byEmail.get(rs.getString("email"));
+                customer.setId(rs.getLong("id"));
+                customer.setVersion(rs.getLong("version"));
+            });
+        }
     }
 
     @Override
@@ -64,6 +156,21 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
         return count != null && count > 0;
     }
 
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        var sql = """
+                SELECT email
+                FROM customer
+                WHERE email = ANY(?)
+                """;
+
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text", emails.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString("email")));
+    }
+
     @Override
     public boolean existsCustomerWithId(Long id) {
         var sql = """
@@ -77,40 +184,85 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
-    public void deleteCustomerById(Long customerId) {
+    public boolean deleteCustomerById(Long customerId) {
         var sql = """
                 DELETE
                 FROM customer
                 WHERE id = ?
                 """;
 
-        int result = jdbcTemplate.update(sql, customerId);
-        System.out.println("deleteCustomerById result = " + result);
+        return jdbcTemplate.update(sql, customerId) > 0;
     }
 
     @Override
-    public void updateCustomer(Customer update) {
+    public Optional<Customer> updateCustomer(Customer update) {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
         if (update.getName() != null) {
-            var sql = "UPDATE customer SET name = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getName(), update.getId());
-            System.out.println("update customer name result = " + result);
+            columns.add("name");
+            values.add(update.getName());
+        }
+        if (update.getEmail() != null) {
+            columns.add("email");
+            values.add(update.getEmail());
         }
         if (update.getAge() != null) {
-            var sql = "UPDATE customer SET age = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getAge(), update.getId());
-            System.out.println("update customer age result = " + result);
+            columns.add("age");
+            values.add(update.getAge());
         }
-        if (update.getEmail() != null) {
-            var sql = "UPDATE customer SET email = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getEmail(), update.getId());
-            System.out.println("update customer email result = " + result);
+        if (update.getPassword() != null) {
+            columns.add("password");
+            values.add(update.getPassword());
+        }
+
+        if (columns.isEmpty()) {
+            return Optional.empty();
         }
+
+        // only touch the row when at least one column actually changes,
+        // and only when it still has the version the caller read
+        var sql = """
+                UPDATE customer
+                SET %s, version = version + 1
+                WHERE id = ? %s AND (%s)
+                RETURNING id, name, email, password, age, version
+                """.formatted(
+                columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", ")),
+                update.getVersion() == null ? "" : "AND version = ?",
+                columns.stream().map(column -> column + " IS DISTINCT FROM ?").collect(Collectors.joining(" OR "))
+        );
+
+        List<Object> args = new ArrayList<>(values);
+        args.add(update.getId());
+        if (update.getVersion() != null) {
+            args.add(update.getVersion());
+        }
+        args.addAll(values);
+
+        try {
+            return jdbcTemplate.query(sql, customerRowMapper, args.toArray())
+                    .stream()
+                    .findFirst();
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException("email already taken");
+        }
+    }
+
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        var sql = """
+                UPDATE customer
+                SET password = ?
+                WHERE id = ? AND password = ?
+                """;
+
+        return jdbcTemplate.update(sql, newPassword, customerId, currentPassword) > 0;
     }
 
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
         var sql = """
-                SELECT id, name, email, password, age
+                SELECT id, name, email, password, age, version
                 FROM customer
                 WHERE email = ?
                 """;
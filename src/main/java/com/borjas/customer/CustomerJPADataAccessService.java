@@ -1,30 +1,71 @@
 package com.borjas.customer;
 
+import com.borjas.exeption.DuplicateResourceException;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jpa")
 @AllArgsConstructor
 public class CustomerJPADataAccessService implements CustomerDao {
+    private static final String UNIQUE_VIOLATION = "23505";
 
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
 
     @Override
     public List<Customer> selectAllCustomers() {
         return customerRepository.findAll();
     }
 
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        try (Stream<Customer> customers = customerRepository.streamAllBy()) {
+            customers.forEach(customer -> {
+                action.accept(customer);
+                // keep the persistence context from growing with the result set
+                entityManager.detach(customer);
+            });
+        }
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Long customerId) {
         return customerRepository.findById(customerId);
     }
 
     @Override
+    @Transactional
     public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+        // the same ON CONFLICT DO NOTHING insert as the batch, so a taken email is a
+        // skipped row rather than a failed statement
+        customerRepository.insertSkippingTakenEmails(List.of(customer));
+        if (customer.getId() == null) {
+            throw new DuplicateResourceException("email already taken");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void insertCustomers(List<Customer> customers) {
+        customerRepository.insertSkippingTakenEmails(customers);
     }
 
     @Override
@@ -32,23 +73,56 @@ public class CustomerJPADataAccessService implements CustomerDao {
         return customerRepository.existsCustomerByEmail(email);
     }
 
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return customerRepository.findExistingEmails(emails);
+    }
+
     @Override
     public boolean existsCustomerWithId(Long id) {
         return customerRepository.existsCustomerById(id);
     }
 
     @Override
-    public void deleteCustomerById(Long customerId) {
-        customerRepository.deleteById(customerId);
+    public boolean deleteCustomerById(Long customerId) {
+        return customerRepository.deleteCustomerById(customerId) > 0;
     }
 
     @Override
-    public void updateCustomer(Customer customer) {
-        customerRepository.save(customer);
+    @Transactional
+    public Optional<Customer> updateCustomer(Customer update) {
+        if (update.getName() == null && update.getEmail() == null
+                && update.getAge() == null && update.getPassword() == null) {
+            return Optional.empty();
+        }
+
+        // the version check and the change check are part of the UPDATE itself, the
+        // way the JDBC DAO does it, and the row is read back in the same transaction
+        int updated;
+        try {
+            updated = customerRepository.updateChangedFields(update.getId(), update.getVersion(),
+                    update.getName(), update.getEmail(), update.getAge(), update.getPassword());
+        } catch (DataIntegrityViolationException e) {
+            throw translateIntegrityViolation(e);
+        }
+        return updated == 0 ? Optional.empty() : customerRepository.findById(update.getId());
+    }
+
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        return customerRepository.updatePassword(customerId, currentPassword, newPassword) > 0;
     }
 
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
         return customerRepository.findCustomerByEmail(email);
     }
+
+    private static RuntimeException translateIntegrityViolation(DataIntegrityViolationException e) {
+        if (e.getMostSpecificCause() instanceof SQLException sqlException
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+            return new DuplicateResourceException("email already taken");
+        }
+        return e;
+    }
 }
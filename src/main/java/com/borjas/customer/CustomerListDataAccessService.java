@@ -1,67 +1,258 @@
 package com.borjas.customer;
 
+import com.borjas.exeption.DuplicateResourceException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 
 @Repository("list")
-public class CustomerListDataAccessService implements CustomerDao {
+public class CustomerListDataAccessService implements CustomerDao, MeterBinder {
+    // approximate sizes on a 64-bit JVM with compressed oops
+    private static final long CUSTOMER_OBJECT_BYTES = 40 + 3 * 16;
+    private static final long STRING_OBJECT_BYTES = 24 + 16;
+    private static final long INDEX_ENTRY_BYTES = 48 + 32;
 
-    private final List<Customer> customerList;
+    // ordered by id so keyset pagination is a tailMap, entries are never handed out
+    private final ConcurrentNavigableMap<Long, Customer> customersById;
+    private final ConcurrentMap<String, Long> customerIdsByEmail;
+    private final AtomicLong idSequence;
+    // kept up to date by every write so the gauges never have to walk the map
+    private final LongAdder storedCustomers = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
 
     public CustomerListDataAccessService() {
-        this.customerList = new ArrayList<>();
+        this.customersById = new ConcurrentSkipListMap<>();
+        this.customerIdsByEmail = new ConcurrentHashMap<>();
+        this.idSequence = new AtomicLong();
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
-        return customerList;
+        return customersById.values()
+                .stream()
+                .map(Customer::copy)
+                .toList();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return customersById.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(limit)
+                .map(Customer::copy)
+                .toList();
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        customersById.values().forEach(customer -> action.accept(customer.copy()));
     }
 
     @Override
     public Optional<Customer> selectCustomerById(Long customerId) {
-        return customerList.stream()
-                .filter(customer -> customer.getId().equals(customerId))
-                .findFirst();
+        return Optional.ofNullable(customersById.get(customerId))
+                .map(Customer::copy);
     }
 
     @Override
     public void insertCustomer(Customer customer) {
-        customerList.add(customer);
+        if (!insertIfEmailFree(customer)) {
+            throw new DuplicateResourceException("email already taken");
+        }
+    }
+
+    /**
+     * Skips the customers whose email is taken and leaves their id null. Any other
+     * failure removes what the call already inserted, so the batch is all or nothing.
+     */
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        List<Customer> inserted = new ArrayList<>(customers.size());
+        try {
+            for (Customer customer : customers) {
+                if (insertIfEmailFree(customer)) {
+                    inserted.add(customer);
+                } else {
+                    customer.setId(null);
+                }
+            }
+        } catch (RuntimeException e) {
+            inserted.forEach(customer -> deleteCustomerById(customer.getId()));
+            throw e;
+        }
+    }
+
+    private boolean insertIfEmailFree(Customer customer) {
+        Long id = customer.getId();
+        if (id == null) {
+            id = idSequence.incrementAndGet();
+        } else {
+            idSequence.accumulateAndGet(id, Math::max);
+        }
+
+        if (customerIdsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+            return false;
+        }
+
+        customer.setId(id);
+        if (customer.getVersion() == null) {
+            customer.setVersion(0L);
+        }
+
+        if (customersById.putIfAbsent(id, customer.copy()) != null) {
+            customerIdsByEmail.remove(customer.getEmail(), id);
+            throw new DuplicateResourceException("customer with id [%s] already exists".formatted(id));
+        }
+        storedCustomers.increment();
+        storedBytes.add(estimatedBytes(customer));
+        return true;
     }
 
     @Override
     public boolean existsCustomerWithEmail(String email) {
-        return customerList.stream()
-                .anyMatch(c -> c.getEmail().equals(email));
+        return customerIdsByEmail.containsKey(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return emails.stream()
+                .filter(customerIdsByEmail::containsKey)
+                .collect(Collectors.toSet());
     }
 
     @Override
     public boolean existsCustomerWithId(Long id) {
-        return customerList.stream()
-                .anyMatch(c -> c.getId().equals(id));
+        return customersById.containsKey(id);
     }
 
     @Override
-    public void deleteCustomerById(Long customerId) {
-        customerList.stream()
-                .filter(c -> c.getId().equals(customerId))
-                .findFirst()
-                .ifPresent(customerList::remove);
+    public boolean deleteCustomerById(Long customerId) {
+        Customer removed = customersById.remove(customerId);
+        if (removed == null) {
+            return false;
+        }
+
+        customerIdsByEmail.remove(removed.getEmail(), customerId);
+        storedCustomers.decrement();
+        storedBytes.add(-estimatedBytes(removed));
+        return true;
     }
 
     @Override
-    public void updateCustomer(Customer customer) {
-        customerList.add(customer);
+    public Optional<Customer> updateCustomer(Customer update) {
+        Long id = update.getId();
+
+        // optimistic loop: build the new row from a snapshot and swap it in only if
+        // nobody replaced the snapshot in the meantime
+        while (true) {
+            Customer current = customersById.get(id);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (update.getVersion() != null && !update.getVersion().equals(current.getVersion())) {
+                return Optional.empty();
+            }
+
+            Customer updated = current.copy();
+            if (!updated.applyUpdate(update)) {
+                return Optional.empty();
+            }
+            updated.setVersion(current.getVersion() + 1);
+
+            boolean emailChanged = !updated.getEmail().equals(current.getEmail());
+            if (emailChanged && customerIdsByEmail.putIfAbsent(updated.getEmail(), id) != null) {
+                throw new DuplicateResourceException("email already taken");
+            }
+
+            if (customersById.replace(id, current, updated)) {
+                storedBytes.add(estimatedBytes(updated) - estimatedBytes(current));
+                if (emailChanged) {
+                    customerIdsByEmail.remove(current.getEmail(), id);
+                }
+                return Optional.of(updated.copy());
+            }
+
+            if (emailChanged) {
+                customerIdsByEmail.remove(updated.getEmail(), id);
+            }
+        }
+    }
+
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        while (true) {
+            Customer current = customersById.get(customerId);
+            if (current == null || !current.getPassword().equals(currentPassword)) {
+                return false;
+            }
+            Customer updated = current.copy();
+            updated.setPassword(newPassword);
+            if (customersById.replace(customerId, current, updated)) {
+                storedBytes.add(estimatedBytes(updated) - estimatedBytes(current));
+                return true;
+            }
+        }
     }
 
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
-        return customerList.stream()
-                .filter(customer -> customer.getUsername().equals(email))
-                .findFirst();
+        return Optional.ofNullable(customerIdsByEmail.get(email))
+                .map(customersById::get)
+                .map(Customer::copy);
+    }
+
+    public int size() {
+        return customersById.size();
+    }
+
+    public long estimatedMemoryBytes() {
+        return storedBytes.sum();
+    }
+
+    public long estimatedBytesPerCustomer() {
+        // the two sums may be a write apart, which only nudges the average
+        long customers = storedCustomers.sum();
+        return customers <= 0 ? 0 : storedBytes.sum() / customers;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.dao.list.memory", this, CustomerListDataAccessService::estimatedMemoryBytes)
+                .description("estimated heap held by the in-memory customer store")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("customer.dao.list.bytes-per-customer", this, CustomerListDataAccessService::estimatedBytesPerCustomer)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    private static long estimatedBytes(Customer customer) {
+        return CUSTOMER_OBJECT_BYTES + 2 * INDEX_ENTRY_BYTES
+                + stringBytes(customer.getName())
+                + stringBytes(customer.getEmail())
+                + stringBytes(customer.getPassword());
+    }
+
+    private static long stringBytes(String value) {
+        // compact strings store latin-1 text in one byte per char, padded to 8 bytes
+        return value == null ? 0 : STRING_OBJECT_BYTES + ((value.length() + 7) & ~7);
     }
 }
@@ -0,0 +1,24 @@
+package com.borjas.customer;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * One page of customers. The API keeps the plain array body it always had and sends the
+ * cursor in the {@value #NEXT_CURSOR_HEADER} header, which is absent on the last page.
+ */
+public record CustomerPage(
+        List<CustomerDTO> customers,
+        Long nextCursor
+) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public ResponseEntity<List<CustomerDTO>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+        }
+        return response.body(customers);
+    }
+}
@@ -0,0 +1,199 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.DuplicateResourceException;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository("r2dbc")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CustomerR2dbcDataAccessService implements ReactiveCustomerDao {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2dbcDataAccessService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Flux<Customer> selectAllCustomers() {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                ORDER BY id
+                """;
+
+        // rows are fetched a chunk at a time as the subscriber asks for them,
+        // so a slow client holds the cursor back instead of filling memory
+        return databaseClient.sql(sql)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(CustomerR2dbcDataAccessService::mapCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomers(Long afterId, int limit) {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2dbcDataAccessService::mapCustomer)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Long customerId) {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE id = :id
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("id", customerId)
+                .map(CustomerR2dbcDataAccessService::mapCustomer)
+                .one();
+    }
+
+    @Override
+    public Mono<Customer> insertCustomer(Customer customer) {
+        var sql = """
+                INSERT INTO customer(name, email, password, age)
+                VALUES (:name, :email, :password, :age)
+                ON CONFLICT DO NOTHING
+                RETURNING id, version
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("name", customer.getName())
+                .bind("email", customer.getEmail())
+                .bind("password", customer.getPassword())
+                .bind("age", customer.getAge())
+                .map(row -> {
+                    customer.setId(row.get("id", Long.class));
+                    customer.setVersion(row.get("version", Long.class));
+                    return customer;
+                })
+                .one()
+                .onErrorMap(DuplicateKeyException.class, e -> new DuplicateResourceException("email already taken"))
+                .switchIfEmpty(Mono.error(() -> new DuplicateResourceException("email already taken")));
+    }
+
+    @Override
+    public Mono<Boolean> existsCustomerWithEmail(String email) {
+        var sql = """
+                SELECT EXISTS(SELECT 1 FROM customer WHERE email = :email) AS found
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("email", email)
+                .map(row -> row.get("found", Boolean.class))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> deleteCustomerById(Long customerId) {
+        var sql = """
+                DELETE
+                FROM customer
+                WHERE id = :id
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("id", customerId)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    @Override
+    public Mono<Customer> updateCustomer(Customer update) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (update.getName() != null) {
+            values.put("name", update.getName());
+        }
+        if (update.getEmail() != null) {
+            values.put("email", update.getEmail());
+        }
+        if (update.getAge() != null) {
+            values.put("age", update.getAge());
+        }
+        if (update.getPassword() != null) {
+            values.put("password", update.getPassword());
+        }
+
+        if (values.isEmpty()) {
+            return Mono.empty();
+        }
+
+        // same conditional update as the JDBC implementation, named parameters
+        // let each new value be bound once and compared as well
+        List<String> columns = new ArrayList<>(values.keySet());
+        var sql = """
+                UPDATE customer
+                SET %s, version = version + 1
+                WHERE id = :id %s AND (%s)
+                RETURNING id, name, email, password, age, version
+                """.formatted(
+                columns.stream().map(column -> column + " = :" + column).collect(Collectors.joining(", ")),
+                update.getVersion() == null ? "" : "AND version = :version",
+                columns.stream().map(column -> column + " IS DISTINCT FROM :" + column).collect(Collectors.joining(" OR "))
+        );
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("id", update.getId());
+        if (update.getVersion() != null) {
+            spec = spec.bind("version", update.getVersion());
+        }
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+
+        return spec.map(CustomerR2dbcDataAccessService::mapCustomer)
+                .one()
+                .onErrorMap(DuplicateKeyException.class, e -> new DuplicateResourceException("email already taken"));
+    }
+
+    @Override
+    public Mono<Customer> selectUserByEmail(String email) {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE email = :email
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("email", email)
+                .map(CustomerR2dbcDataAccessService::mapCustomer)
+                .one();
+    }
+
+    private static Customer mapCustomer(Readable row) {
+        Customer customer = new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("password", String.class),
+                row.get("age", Integer.class)
+        );
+        customer.setVersion(row.get("version", Long.class));
+        return customer;
+    }
+}
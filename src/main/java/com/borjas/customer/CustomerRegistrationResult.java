@@ -0,0 +1,9 @@
+package com.borjas.customer;
+
+public record CustomerRegistrationResult(
+        String email,
+        CustomerRegistrationStatus status,
+        Long id,
+        String message
+) {
+}
@@ -0,0 +1,7 @@
+package com.borjas.customer;
+
+public enum CustomerRegistrationStatus {
+    CREATED,
+    DUPLICATE,
+    INVALID
+}
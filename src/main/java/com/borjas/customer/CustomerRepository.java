@@ -1,12 +1,66 @@
 package com.borjas.customer;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerBatchInsertRepository {
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Long id);
     Optional<Customer> findCustomerByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Customer c WHERE c.id = :id")
+    int deleteCustomerById(Long id);
+
+    /**
+     * Applies the non-null fields in one statement, only when at least one of them
+     * changes the row and, when a version is given, only when the row still has it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Customer c
+            SET c.name = COALESCE(:name, c.name),
+                c.email = COALESCE(:email, c.email),
+                c.age = COALESCE(:age, c.age),
+                c.password = COALESCE(:password, c.password),
+                c.version = c.version + 1
+            WHERE c.id = :id
+              AND c.version = COALESCE(:version, c.version)
+              AND (c.name <> COALESCE(:name, c.name)
+                OR c.email <> COALESCE(:email, c.email)
+                OR c.age <> COALESCE(:age, c.age)
+                OR c.password <> COALESCE(:password, c.password))
+            """)
+    int updateChangedFields(Long id, Long version, String name, String email, Integer age, String password);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Customer c SET c.password = :newPassword WHERE c.id = :id AND c.password = :currentPassword")
+    int updatePassword(Long id, String currentPassword, String newPassword);
+
+    @Query("SELECT c.email FROM Customer c WHERE c.email IN :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT c FROM Customer c ORDER BY c.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Customer> streamAllBy();
 }
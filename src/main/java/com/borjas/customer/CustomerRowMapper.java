@@ -17,6 +17,7 @@ public class CustomerRowMapper implements RowMapper {
                 rs.getString("password"),
                 rs.getInt("age")
         );
+        customer.setVersion(rs.getLong("version"));
         return customer;
     }
 }
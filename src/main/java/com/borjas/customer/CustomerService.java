@@ -1,94 +1,227 @@
 package com.borjas.customer;
 
 import com.borjas.exeption.DuplicateResourceException;
+import com.borjas.exeption.PreconditionFailedException;
 import com.borjas.exeption.RequestValidationException;
 import com.borjas.exeption.ResourceNotFoundException;
+import com.borjas.security.BoundedPasswordExecutor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BULK_REGISTRATIONS = 5000;
+
     private final CustomerDao customerDao;
     private final PasswordEncoder passwordEncoder;
     private final CustomerDTOMapper customerDTOMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BoundedPasswordExecutor passwordExecutor;
 
-    public CustomerService(@Qualifier("jpa") CustomerDao customerDao, PasswordEncoder passwordEncoder, CustomerDTOMapper customerDTOMapper) {
+    public CustomerService(@Qualifier("customerDao") CustomerDao customerDao, PasswordEncoder passwordEncoder, CustomerDTOMapper customerDTOMapper, ApplicationEventPublisher eventPublisher, BoundedPasswordExecutor passwordExecutor) {
         this.customerDao = customerDao;
         this.passwordEncoder = passwordEncoder;
         this.customerDTOMapper = customerDTOMapper;
+        this.eventPublisher = eventPublisher;
+        this.passwordExecutor = passwordExecutor;
     }
 
-    public List<CustomerDTO> getAllCustomers() {
-        return customerDao.selectAllCustomers()
-                .stream()
-                .map(customerDTOMapper)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomers(Long after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1) {
+            throw new RequestValidationException("limit must be greater than zero");
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        // fetch one extra row to know whether there is a next page
+        List<Customer> customers = customerDao.selectCustomers(after == null ? 0L : after, pageSize + 1);
+
+        Long nextCursor = null;
+        if (customers.size() > pageSize) {
+            customers = customers.subList(0, pageSize);
+            nextCursor = customers.get(pageSize - 1).getId();
+        }
+
+        return new CustomerPage(
+                customers.stream()
+                        .map(customerDTOMapper)
+                        .collect(Collectors.toList()),
+                nextCursor
+        );
     }
 
+    @Transactional(readOnly = true)
     public CustomerDTO getCustomer(Long customerId) {
         return customerDao.selectCustomerById(customerId)
                 .map(customerDTOMapper)
                 .orElseThrow(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId)));
     }
 
-    public void addCustomer(CustomerRegistrationRequest registrationRequest) {
-        // check if email is taken
-        String email = registrationRequest.email();
-        if (customerDao.existsCustomerWithEmail(email)) {
-            throw new DuplicateResourceException("email already taken");
+    public CustomerDTO addCustomer(CustomerRegistrationRequest registrationRequest) {
+        // hash off the request thread while the uniqueness check runs, so a taken
+        // email fails without waiting for BCrypt and a full queue fails straight away
+        BoundedPasswordExecutor.Task<String> passwordHash =
+                passwordExecutor.submit(() -> passwordEncoder.encode(registrationRequest.password()));
+
+        String password;
+        try {
+            if (customerDao.existsCustomerWithEmail(registrationRequest.email())) {
+                throw new DuplicateResourceException("email already taken");
+            }
+            password = passwordHash.join();
+        } finally {
+            // no-op once joined; otherwise a failed check must not leave the hash queued
+            passwordHash.cancel();
         }
 
-        // add new customer
+        // the insert still enforces uniqueness for concurrent registrations
         Customer customer = new Customer(
                 registrationRequest.name(),
                 registrationRequest.email(),
-                passwordEncoder.encode(registrationRequest.password()),
+                password,
                 registrationRequest.age()
         );
 
         customerDao.insertCustomer(customer);
+        return customerDTOMapper.apply(customer);
     }
 
-    public void deleteCustomerById(Long customerId) {
-        if (!customerDao.existsCustomerWithId(customerId)) {
-            throw new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId));
+    public List<CustomerRegistrationResult> addCustomers(List<CustomerRegistrationRequest> registrationRequests) {
+        if (registrationRequests == null || registrationRequests.isEmpty()) {
+            throw new RequestValidationException("no customers to register");
+        }
+        if (registrationRequests.size() > MAX_BULK_REGISTRATIONS) {
+            throw new RequestValidationException(
+                    "at most %s customers can be registered at once".formatted(MAX_BULK_REGISTRATIONS)
+            );
         }
 
-        customerDao.deleteCustomerById(customerId);
-    }
+        CustomerRegistrationResult[] results = new CustomerRegistrationResult[registrationRequests.size()];
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> emailsInRequest = new HashSet<>();
+
+        for (int i = 0; i < registrationRequests.size(); i++) {
+            CustomerRegistrationRequest request = registrationRequests.get(i);
+            if (!isComplete(request)) {
+                results[i] = new CustomerRegistrationResult(
+                        request == null ? null : request.email(),
+                        CustomerRegistrationStatus.INVALID,
+                        null,
+                        "name, email, password and age are required"
+                );
+            } else if (!emailsInRequest.add(request.email())) {
+                results[i] = new CustomerRegistrationResult(
+                        request.email(), CustomerRegistrationStatus.DUPLICATE, null, "email already taken"
+                );
+            } else {
+                candidates.add(i);
+            }
+        }
 
-    public void updateCustomer(Long customerId, CustomerUpdateRequest updateRequest) {
-        Customer customer = customerDao.selectCustomerById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId)));
+        // check every email in a single query
+        Set<String> takenEmails = candidates.isEmpty()
+                ? Set.of()
+                : customerDao.selectExistingEmails(
+                        candidates.stream().map(i -> registrationRequests.get(i).email()).toList()
+                );
+
+        List<Integer> accepted = new ArrayList<>();
+        for (Integer i : candidates) {
+            String email = registrationRequests.get(i).email();
+            if (takenEmails.contains(email)) {
+                results[i] = new CustomerRegistrationResult(
+                        email, CustomerRegistrationStatus.DUPLICATE, null, "email already taken"
+                );
+            } else {
+                accepted.add(i);
+            }
+        }
 
-        boolean changes = false;
+        // the batch shares the password pool with logins and signups, so it gets the
+        // same limit and the same 503 when that pool is overloaded
+        List<String> passwordHashes = passwordExecutor.executeAll(accepted.stream()
+                .map(registrationRequests::get)
+                .<Supplier<String>>map(request -> () -> passwordEncoder.encode(request.password()))
+                .toList());
+
+        List<Customer> customers = new ArrayList<>(accepted.size());
+        for (int j = 0; j < accepted.size(); j++) {
+            CustomerRegistrationRequest request = registrationRequests.get(accepted.get(j));
+            customers.add(new Customer(request.name(), request.email(), passwordHashes.get(j), request.age()));
+        }
 
-        if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())) {
-            customer.setName(updateRequest.name());
-            changes = true;
+        if (!customers.isEmpty()) {
+            customerDao.insertCustomers(customers);
         }
 
-        if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())) {
-            customer.setAge(updateRequest.age());
-            changes = true;
+        // an email taken since the check above comes back without an id
+        for (int j = 0; j < accepted.size(); j++) {
+            Customer customer = customers.get(j);
+            results[accepted.get(j)] = customer.getId() != null
+                    ? new CustomerRegistrationResult(
+                            customer.getEmail(), CustomerRegistrationStatus.CREATED, customer.getId(), null)
+                    : new CustomerRegistrationResult(
+                            customer.getEmail(), CustomerRegistrationStatus.DUPLICATE, null, "email already taken");
         }
 
-        if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())) {
-            if (customerDao.existsCustomerWithEmail(updateRequest.email())) {
-                throw new DuplicateResourceException("email already taken");
-            }
-            customer.setEmail(updateRequest.email());
-            changes = true;
+        return List.of(results);
+    }
+
+    private static boolean isComplete(CustomerRegistrationRequest request) {
+        return request != null
+                && request.name() != null
+                && request.email() != null && !request.email().isBlank()
+                && request.password() != null
+                && request.age() != null;
+    }
+
+    public void deleteCustomerById(Long customerId) {
+        if (!customerDao.deleteCustomerById(customerId)) {
+            throw new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId));
         }
+        eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+    }
 
-        if (!changes) {
+    public void updateCustomer(Long customerId, CustomerUpdateRequest updateRequest) {
+        updateCustomer(customerId, updateRequest, null);
+    }
+
+    public void updateCustomer(Long customerId, CustomerUpdateRequest updateRequest, Long expectedVersion) {
+        if (updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null) {
             throw new RequestValidationException("no data changes found");
         }
 
-        customerDao.updateCustomer(customer);
+        Customer update = new Customer();
+        update.setId(customerId);
+        update.setName(updateRequest.name());
+        update.setEmail(updateRequest.email());
+        update.setAge(updateRequest.age());
+        update.setVersion(expectedVersion);
+
+        if (customerDao.updateCustomer(update).isEmpty()) {
+            // nothing was written: find out whether the customer is missing, stale or unchanged
+            Customer current = customerDao.selectCustomerById(customerId)
+                    .orElseThrow(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId)));
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                throw new PreconditionFailedException(
+                        "customer with id [%s] was modified concurrently".formatted(customerId)
+                );
+            }
+            throw new RequestValidationException("no data changes found");
+        }
+        eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
     }
 }
@@ -0,0 +1,104 @@
+package com.borjas.customer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the customers of the unsharded {@code customer} table in the main database
+ * onto the shards, for switching an existing install to the sharded DAO. Old ids are
+ * kept: they are far below any id the shards hand out, and their bucket bits route
+ * them like any other. The main table is left as it was.
+ */
+@Slf4j
+public class CustomerShardBackfill {
+    private static final int COPY_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerShardDirectory directory;
+    private final List<JdbcTemplate> shards;
+    private final CustomerRowMapper customerRowMapper;
+
+    public CustomerShardBackfill(JdbcTemplate jdbcTemplate,
+                                 CustomerShardDirectory directory,
+                                 CustomerShardedDataAccessService shardedCustomerDao,
+                                 CustomerRowMapper customerRowMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = directory;
+        this.shards = shardedCustomerDao.shards();
+        this.customerRowMapper = customerRowMapper;
+    }
+
+    /**
+     * Safe to run again: rows already on their shard are skipped, and so is a customer
+     * whose email was meanwhile registered by someone on the sharded side.
+     */
+    public long backfill() {
+        var outOfRange = """
+                SELECT count(id)
+                FROM customer
+                WHERE ((id >> 10) & 4095) >= ?
+                """;
+        var select = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+        var insert = """
+                INSERT INTO customer(id, name, email, password, age, version)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT DO NOTHING
+                """;
+
+        Long unroutable = jdbcTemplate.queryForObject(outOfRange, Long.class, directory.buckets());
+        if (unroutable != null && unroutable > 0) {
+            throw new IllegalStateException(("%d customers have ids whose bucket is past the %d configured buckets; "
+                    + "backfill into a directory initialized with more buckets").formatted(unroutable, directory.buckets()));
+        }
+
+        directory.refresh();
+        long read = 0;
+        long skipped = 0;
+        long lastId = 0;
+        List<Customer> batch;
+        do {
+            batch = jdbcTemplate.query(select, customerRowMapper, lastId, COPY_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+
+            directory.claimEmails(batch);
+            Map<String, Long> owners = directory.owners(batch.stream().map(Customer::getEmail).toList());
+            Map<Integer, List<Customer>> byShard = new HashMap<>();
+            for (Customer customer : batch) {
+                if (customer.getId().equals(owners.get(customer.getEmail()))) {
+                    byShard.computeIfAbsent(directory.shardOf(customer.getId()), shard -> new ArrayList<>()).add(customer);
+                } else {
+                    log.warn("Customer {} was not backfilled, its email belongs to customer {}",
+                            customer.getId(), owners.get(customer.getEmail()));
+                    skipped++;
+                }
+            }
+            byShard.forEach((shard, inShard) -> shards.get(shard).batchUpdate(insert, inShard, COPY_BATCH_SIZE,
+                    (ps, customer) -> {
+                        ps.setLong(1, customer.getId());
+                        ps.setString(2, customer.getName());
+                        ps.setString(3, customer.getEmail());
+                        ps.setString(4, customer.getPassword());
+                        ps.setInt(5, customer.getAge());
+                        ps.setLong(6, customer.getVersion());
+                    }));
+            read += batch.size();
+        } while (batch.size() == COPY_BATCH_SIZE);
+
+        log.info("Customer shard backfill read {} customers, {} skipped", read, skipped);
+        return read - skipped;
+    }
+}
@@ -0,0 +1,303 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The global part of the sharded customer storage: which shard owns each bucket, and
+ * which customer owns each email. Lives in the main database, while the customers
+ * themselves live on the shards.
+ */
+@Slf4j
+public class CustomerShardDirectory {
+    static final int MAX_BUCKETS = 4096;
+    private static final int SEQUENCE_BITS = 10;
+    private static final String REBALANCING = "customer storage is being rebalanced, please retry shortly";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int buckets;
+    private volatile Assignment assignment;
+
+    public CustomerShardDirectory(JdbcTemplate jdbcTemplate, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("bucket count must be between 1 and " + MAX_BUCKETS);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.buckets = buckets;
+    }
+
+    static int bucketOf(long customerId) {
+        return (int) ((customerId >>> SEQUENCE_BITS) & (MAX_BUCKETS - 1));
+    }
+
+    /**
+     * Spreads the buckets round-robin over the shards the first time sharding starts;
+     * afterwards the stored assignment wins and only the rebalancer changes it.
+     */
+    public void initialize(int shardCount) {
+        var sql = """
+                INSERT INTO customer_shard_bucket(bucket, shard)
+                SELECT bucket, bucket % ?
+                FROM generate_series(0, ? - 1) AS bucket
+                ON CONFLICT DO NOTHING
+                """;
+
+        jdbcTemplate.update(sql, shardCount, buckets);
+        refresh();
+
+        int[] shards = assignment.shards();
+        if (shards.length != buckets) {
+            throw new IllegalStateException(
+                    "customer shards were set up with %d buckets, not %d".formatted(shards.length, buckets));
+        }
+        for (int shard : shards) {
+            if (shard >= shardCount) {
+                throw new IllegalStateException("buckets are assigned to shard %d but only %d shards are configured"
+                        .formatted(shard, shardCount));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${customer.sharding.refresh-interval:PT5S}")
+    public void refresh() {
+        var sql = """
+                SELECT bucket, shard, moving
+                FROM customer_shard_bucket
+                ORDER BY bucket
+                """;
+
+        List<int[]> rows = jdbcTemplate.query(sql, (rs, rowNum) -> new int[]{
+                rs.getInt("bucket"), rs.getInt("shard"), rs.getBoolean("moving") ? 1 : 0
+        });
+        int[] shards = new int[rows.size()];
+        boolean[] moving = new boolean[rows.size()];
+        for (int[] row : rows) {
+            shards[row[0]] = row[1];
+            moving[row[0]] = row[2] == 1;
+        }
+        assignment = new Assignment(shards, moving, IntStream.range(0, moving.length)
+                .filter(bucket -> !moving[bucket])
+                .toArray());
+    }
+
+    int buckets() {
+        return buckets;
+    }
+
+    /**
+     * The shard of every bucket, as of the last refresh.
+     */
+    int[] shards() {
+        return assignment.shards().clone();
+    }
+
+    /**
+     * Ids whose bucket is past the configured count were never handed out here, so
+     * they belong to no shard and can only be reported as not found.
+     */
+    boolean hasBucket(long customerId) {
+        return bucketOf(customerId) < buckets;
+    }
+
+    int shardOf(long customerId) {
+        return assignment.shards()[bucketOf(customerId)];
+    }
+
+    int shardOfBucket(int bucket) {
+        return assignment.shards()[bucket];
+    }
+
+    /**
+     * Picks a random bucket that is not being moved, so new customers do not have to
+     * wait for a rebalance; only fails when every bucket is moving.
+     */
+    int randomWritableBucket() {
+        int[] writable = assignment.writableBuckets();
+        if (writable.length == 0) {
+            throw new ServiceUnavailableException(REBALANCING);
+        }
+        return writable[ThreadLocalRandom.current().nextInt(writable.length)];
+    }
+
+    boolean isMoving(int bucket) {
+        return assignment.moving()[bucket];
+    }
+
+    void checkWritable(int bucket) {
+        if (isMoving(bucket)) {
+            throw new ServiceUnavailableException(REBALANCING);
+        }
+    }
+
+    Optional<Long> customerIdByEmail(String email) {
+        var sql = """
+                SELECT customer_id
+                FROM customer_email_directory
+                WHERE email = ?
+                """;
+
+        return jdbcTemplate.queryForList(sql, Long.class, email)
+                .stream()
+                .findFirst();
+    }
+
+    Set<String> existingEmails(Collection<String> emails) {
+        var sql = """
+                SELECT email
+                FROM customer_email_directory
+                WHERE email = ANY(?)
+                """;
+
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text", emails.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString("email")));
+    }
+
+    Map<String, Long> owners(Collection<String> emails) {
+        var sql = """
+                SELECT email, customer_id
+                FROM customer_email_directory
+                WHERE email = ANY(?)
+                """;
+
+        Map<String, Long> owners = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text", emails.toArray()));
+            return statement;
+        }, rs -> {
+            owners.put(rs.getString("email"), rs.getLong("customer_id"));
+        });
+        return owners;
+    }
+
+    /**
+     * The next claims by email that were made longer ago than {@code age}, for checking
+     * them against the shards without racing the writes that made them.
+     */
+    List<EmailClaim> claimsOlderThan(Duration age, String afterEmail, int limit) {
+        var sql = """
+                SELECT email, customer_id
+                FROM customer_email_directory
+                WHERE email > ? AND claimed_at < now() - make_interval(secs => ?)
+                ORDER BY email
+                LIMIT ?
+                """;
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new EmailClaim(rs.getString("email"), rs.getLong("customer_id")),
+                afterEmail, age.toMillis() / 1000.0, limit);
+    }
+
+    /**
+     * Records the email for the customer, or returns false when another customer has it.
+     */
+    boolean claimEmail(String email, long customerId) {
+        var sql = """
+                INSERT INTO customer_email_directory(email, customer_id)
+                VALUES (?, ?)
+                ON CONFLICT DO NOTHING
+                """;
+
+        return jdbcTemplate.update(sql, email, customerId) > 0;
+    }
+
+    /**
+     * Claims the emails that are still free and returns the ids of the customers they
+     * were claimed for; the taken ones stay with whoever has them.
+     */
+    Set<Long> claimEmails(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer_email_directory(email, customer_id)
+                SELECT * FROM unnest(?::text[], ?::bigint[])
+                ON CONFLICT DO NOTHING
+                RETURNING customer_id
+                """;
+
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text",
+                    customers.stream().map(Customer::getEmail).toArray()));
+            statement.setArray(2, connection.createArrayOf("bigint",
+                    customers.stream().map(Customer::getId).toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong("customer_id")));
+    }
+
+    void releaseEmail(String email, long customerId) {
+        var sql = """
+                DELETE
+                FROM customer_email_directory
+                WHERE email = ? AND customer_id = ?
+                """;
+
+        jdbcTemplate.update(sql, email, customerId);
+    }
+
+    void releaseEmails(List<Customer> customers) {
+        release(customers.stream().map(Customer::getEmail).toArray(),
+                customers.stream().map(Customer::getId).toArray());
+    }
+
+    void releaseClaims(List<EmailClaim> claims) {
+        release(claims.stream().map(EmailClaim::email).toArray(),
+                claims.stream().map(EmailClaim::customerId).toArray());
+    }
+
+    private void release(Object[] emails, Object[] customerIds) {
+        var sql = """
+                DELETE
+                FROM customer_email_directory
+                WHERE (email, customer_id) IN (SELECT * FROM unnest(?::text[], ?::bigint[]))
+                """;
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text", emails));
+            statement.setArray(2, connection.createArrayOf("bigint", customerIds));
+            return statement;
+        });
+    }
+
+    void setMoving(int bucket, boolean moving) {
+        var sql = """
+                UPDATE customer_shard_bucket
+                SET moving = ?
+                WHERE bucket = ?
+                """;
+
+        jdbcTemplate.update(sql, moving, bucket);
+    }
+
+    void assign(int bucket, int shard) {
+        var sql = """
+                UPDATE customer_shard_bucket
+                SET shard = ?, moving = false
+                WHERE bucket = ?
+                """;
+
+        jdbcTemplate.update(sql, shard, bucket);
+        log.info("Customer bucket {} now lives on shard {}", bucket, shard);
+    }
+
+    record EmailClaim(String email, long customerId) {
+    }
+
+    private record Assignment(int[] shards, boolean[] moving, int[] writableBuckets) {
+    }
+}
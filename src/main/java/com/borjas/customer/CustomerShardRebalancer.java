@@ -0,0 +1,145 @@
+package com.borjas.customer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Moves buckets onto shards that were added to {@code customer.sharding.shard-urls},
+ * until every shard owns an even share. Each bucket is marked moving so that writes
+ * to it are refused, copied, reassigned and only then deleted from the old shard;
+ * the grace period lets every instance's directory refresh see each step.
+ */
+@Slf4j
+public class CustomerShardRebalancer {
+    private static final int COPY_BATCH_SIZE = 500;
+
+    private final CustomerShardDirectory directory;
+    private final List<JdbcTemplate> shards;
+    private final CustomerRowMapper customerRowMapper;
+    private final Duration grace;
+
+    public CustomerShardRebalancer(CustomerShardDirectory directory,
+                                   CustomerShardedDataAccessService shardedCustomerDao,
+                                   CustomerRowMapper customerRowMapper,
+                                   Duration grace) {
+        this.directory = directory;
+        this.shards = shardedCustomerDao.shards();
+        this.customerRowMapper = customerRowMapper;
+        this.grace = grace;
+    }
+
+    record Move(int bucket, int from, int to) {
+    }
+
+    /**
+     * The fewest moves that leave each shard with {@code buckets / shards} buckets, or
+     * one more: overloaded shards give their highest buckets to the emptiest shards.
+     */
+    static List<Move> plan(int[] shardOfBucket, int shardCount) {
+        List<Deque<Integer>> owned = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            owned.add(new ArrayDeque<>());
+        }
+        for (int bucket = 0; bucket < shardOfBucket.length; bucket++) {
+            owned.get(shardOfBucket[bucket]).addLast(bucket);
+        }
+
+        int base = shardOfBucket.length / shardCount;
+        int withExtra = shardOfBucket.length % shardCount;
+        // the shards that already hold the most keep the extra bucket, which moves least
+        List<Integer> bySize = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            bySize.add(shard);
+        }
+        bySize.sort((a, b) -> owned.get(b).size() - owned.get(a).size());
+        int[] target = new int[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            target[bySize.get(i)] = base + (i < withExtra ? 1 : 0);
+        }
+
+        List<Move> moves = new ArrayList<>();
+        int to = 0;
+        for (int from = 0; from < shardCount; from++) {
+            while (owned.get(from).size() > target[from]) {
+                while (owned.get(to).size() >= target[to]) {
+                    to++;
+                }
+                int bucket = owned.get(from).removeLast();
+                owned.get(to).addLast(bucket);
+                moves.add(new Move(bucket, from, to));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Safe to run again after an interruption: a bucket left moving is simply copied
+     * again, and rows that already made it across are skipped.
+     */
+    public int rebalance() throws InterruptedException {
+        directory.refresh();
+        List<Move> moves = plan(directory.shards(), shards.size());
+        log.info("Rebalancing customers over {} shards: {} buckets to move", shards.size(), moves.size());
+
+        for (Move move : moves) {
+            directory.setMoving(move.bucket(), true);
+            Thread.sleep(grace.toMillis());
+
+            long copied = copy(move);
+            directory.assign(move.bucket(), move.to());
+            Thread.sleep(grace.toMillis());
+
+            int deleted = shards.get(move.from()).update("""
+                    DELETE
+                    FROM customer
+                    WHERE ((id >> 10) & 4095) = ?
+                    """, move.bucket());
+            log.info("Moved bucket {} from shard {} to shard {}: {} customers copied, {} deleted",
+                    move.bucket(), move.from(), move.to(), copied, deleted);
+        }
+
+        directory.refresh();
+        return moves.size();
+    }
+
+    private long copy(Move move) {
+        var select = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE ((id >> 10) & 4095) = ? AND id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+        var insert = """
+                INSERT INTO customer(id, name, email, password, age, version)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (id) DO NOTHING
+                """;
+
+        long copied = 0;
+        long lastId = 0;
+        List<Customer> batch;
+        do {
+            batch = shards.get(move.from()).query(select, customerRowMapper, move.bucket(), lastId, COPY_BATCH_SIZE);
+            shards.get(move.to()).batchUpdate(insert, batch, COPY_BATCH_SIZE, (ps, customer) -> {
+                ps.setLong(1, customer.getId());
+                ps.setString(2, customer.getName());
+                ps.setString(3, customer.getEmail());
+                ps.setString(4, customer.getPassword());
+                ps.setInt(5, customer.getAge());
+                ps.setLong(6, customer.getVersion());
+            });
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            copied += batch.size();
+        } while (batch.size() == COPY_BATCH_SIZE);
+        return copied;
+    }
+}
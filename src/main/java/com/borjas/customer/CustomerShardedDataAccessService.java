@@ -0,0 +1,515 @@
+package com.borjas.customer;
+
+import com.borjas.concurrency.VirtualThreads;
+import com.borjas.exeption.DuplicateResourceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Customers spread over several databases. Every id carries one of the directory's
+ * buckets, so single customer operations go straight to the owning shard, emails are
+ * resolved through the directory, and listings query all shards in parallel and merge
+ * their pages by id.
+ */
+@Slf4j
+public class CustomerShardedDataAccessService implements CustomerDao, DisposableBean {
+    private static final int MERGE_PAGE_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int DEFAULT_PARALLEL_REQUESTS = 16;
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final CustomerShardDirectory directory;
+    private final CustomerRowMapper customerRowMapper;
+    private final ExecutorService executor;
+
+    public CustomerShardedDataAccessService(List<DataSource> dataSources,
+                                            CustomerShardDirectory directory,
+                                            CustomerRowMapper customerRowMapper) {
+        this(dataSources, directory, customerRowMapper, DEFAULT_PARALLEL_REQUESTS);
+    }
+
+    public CustomerShardedDataAccessService(List<DataSource> dataSources,
+                                            CustomerShardDirectory directory,
+                                            CustomerRowMapper customerRowMapper,
+                                            int parallelRequests) {
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.directory = directory;
+        this.customerRowMapper = customerRowMapper;
+        this.executor = scatterExecutor(dataSources.size() * parallelRequests);
+    }
+
+    List<JdbcTemplate> shards() {
+        return shards;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>();
+        forEachCustomer(customers::add);
+        return customers;
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        List<Customer> customers = new ArrayList<>(limit);
+        merge(afterId, Math.min(limit, MERGE_PAGE_SIZE), limit, customers::add);
+        return customers;
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        merge(0L, MERGE_PAGE_SIZE, Long.MAX_VALUE, action);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        var sql = """
+                SELECT id, name, email, password, age, version
+                FROM customer
+                WHERE id = ?
+                """;
+
+        if (!directory.hasBucket(customerId)) {
+            return Optional.empty();
+        }
+        return shardOf(customerId).query(sql, customerRowMapper, customerId)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        int bucket = directory.randomWritableBucket();
+        JdbcTemplate shard = shards.get(directory.shardOfBucket(bucket));
+        customer.setId(shard.queryForObject("SELECT next_customer_id(?)", Long.class, bucket));
+
+        if (!directory.claimEmail(customer.getEmail(), customer.getId())) {
+            throw new DuplicateResourceException("email already taken");
+        }
+
+        var sql = """
+                INSERT INTO customer(id, name, email, password, age)
+                VALUES (?, ?, ?, ?, ?)
+                RETURNING version
+                """;
+
+        try {
+            customer.setVersion(shard.queryForObject(sql, Long.class, customer.getId(),
+                    customer.getName(), customer.getEmail(), customer.getPassword(), customer.getAge()));
+        } catch (RuntimeException e) {
+            directory.releaseEmail(customer.getEmail(), customer.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Spreads the batch over random writable buckets and writes each shard's part in parallel.
+     * The directory claims the emails first; customers whose email is taken are left
+     * out of the shard writes and keep a null id.
+     */
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        Map<Integer, Map<Integer, List<Customer>>> byShardAndBucket = new HashMap<>();
+        for (Customer customer : customers) {
+            int bucket = directory.randomWritableBucket();
+            byShardAndBucket.computeIfAbsent(directory.shardOfBucket(bucket), shard -> new HashMap<>())
+                    .computeIfAbsent(bucket, b -> new ArrayList<>())
+                    .add(customer);
+        }
+        scatter(shard -> {
+            byShardAndBucket.getOrDefault(shard, Map.of()).forEach((bucket, inBucket) -> assignIds(shard, bucket, inBucket));
+            return null;
+        });
+
+        Set<Long> claimedIds = directory.claimEmails(customers);
+        List<Customer> claimed = customers.stream()
+                .filter(customer -> claimedIds.contains(customer.getId()))
+                .toList();
+        byShardAndBucket.values().forEach(byBucket -> byBucket.values()
+                .forEach(inBucket -> inBucket.removeIf(customer -> !claimedIds.contains(customer.getId()))));
+        customers.stream()
+                .filter(customer -> !claimedIds.contains(customer.getId()))
+                .forEach(customer -> customer.setId(null));
+
+        var sql = """
+                INSERT INTO customer(id, name, email, password, age)
+                VALUES (?, ?, ?, ?, ?)
+                """;
+
+        try {
+            scatter(shard -> shards.get(shard).batchUpdate(sql, inShard(byShardAndBucket, shard), INSERT_BATCH_SIZE,
+                    (ps, customer) -> {
+                        ps.setLong(1, customer.getId());
+                        ps.setString(2, customer.getName());
+                        ps.setString(3, customer.getEmail());
+                        ps.setString(4, customer.getPassword());
+                        ps.setInt(5, customer.getAge());
+                    }));
+        } catch (RuntimeException e) {
+            // the shards that did commit must not keep customers the directory forgets
+            scatter(shard -> deleteIds(shard, inShard(byShardAndBucket, shard)));
+            directory.releaseEmails(claimed);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return directory.customerIdByEmail(email).isPresent();
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return directory.existingEmails(emails);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        var sql = """
+                SELECT count(id)
+                FROM customer
+                WHERE id = ?
+                """;
+
+        if (!directory.hasBucket(id)) {
+            return false;
+        }
+        Integer count = shardOf(id).queryForObject(sql, Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public boolean deleteCustomerById(Long customerId) {
+        if (!directory.hasBucket(customerId)) {
+            return false;
+        }
+        directory.checkWritable(CustomerShardDirectory.bucketOf(customerId));
+
+        var sql = """
+                DELETE
+                FROM customer
+                WHERE id = ?
+                RETURNING email
+                """;
+
+        List<String> deleted = shardOf(customerId).queryForList(sql, String.class, customerId);
+        deleted.forEach(email -> directory.releaseEmail(email, customerId));
+        return !deleted.isEmpty();
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer update) {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        if (update.getName() != null) {
+            columns.add("name");
+            values.add(update.getName());
+        }
+        if (update.getEmail() != null) {
+            columns.add("email");
+            values.add(update.getEmail());
+        }
+        if (update.getAge() != null) {
+            columns.add("age");
+            values.add(update.getAge());
+        }
+        if (update.getPassword() != null) {
+            columns.add("password");
+            values.add(update.getPassword());
+        }
+
+        if (columns.isEmpty() || !directory.hasBucket(update.getId())) {
+            return Optional.empty();
+        }
+
+        directory.checkWritable(CustomerShardDirectory.bucketOf(update.getId()));
+
+        // a new email is claimed before the shard changes and the old one released after
+        boolean claimed = false;
+        if (update.getEmail() != null) {
+            Optional<Long> owner = directory.customerIdByEmail(update.getEmail());
+            if (owner.isPresent() && !owner.get().equals(update.getId())) {
+                throw new DuplicateResourceException("email already taken");
+            }
+            if (owner.isEmpty()) {
+                if (!directory.claimEmail(update.getEmail(), update.getId())) {
+                    throw new DuplicateResourceException("email already taken");
+                }
+                claimed = true;
+            }
+        }
+
+        // only touch the row when at least one column actually changes, and only when
+        // it still has the version the caller read; the locked subquery hands back the
+        // email it had before
+        var sql = """
+                UPDATE customer c
+                SET %s, version = c.version + 1
+                FROM (SELECT id, email FROM customer WHERE id = ? FOR UPDATE) previous
+                WHERE c.id = previous.id %s AND (%s)
+                RETURNING c.id, c.name, c.email, c.password, c.age, c.version, previous.email AS previous_email
+                """.formatted(
+                columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", ")),
+                update.getVersion() == null ? "" : "AND c.version = ?",
+                columns.stream().map(column -> "c." + column + " IS DISTINCT FROM ?").collect(Collectors.joining(" OR "))
+        );
+
+        List<Object> args = new ArrayList<>(values);
+        args.add(update.getId());
+        if (update.getVersion() != null) {
+            args.add(update.getVersion());
+        }
+        args.addAll(values);
+
+        List<String> previousEmails = new ArrayList<>();
+        Optional<Customer> updated;
+        try {
+            updated = shardOf(update.getId()).query(sql, (rs, rowNum) -> {
+                        previousEmails.add(rs.getString("previous_email"));
+                        return customerRowMapper.mapRow(rs, rowNum);
+                    }, args.toArray())
+                    .stream()
+                    .findFirst();
+        } catch (RuntimeException e) {
+            if (claimed) {
+                directory.releaseEmail(update.getEmail(), update.getId());
+            }
+            if (e instanceof DuplicateKeyException) {
+                throw new DuplicateResourceException("email already taken");
+            }
+            throw e;
+        }
+
+        if (updated.isEmpty()) {
+            if (claimed) {
+                directory.releaseEmail(update.getEmail(), update.getId());
+            }
+        } else {
+            previousEmails.stream()
+                    .filter(previous -> !previous.equals(updated.get().getEmail()))
+                    .forEach(previous -> directory.releaseEmail(previous, update.getId()));
+        }
+        return updated;
+    }
+
+    /**
+     * A moving bucket is skipped rather than refused, the password is rehashed on a
+     * later login instead of failing this one.
+     */
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        if (!directory.hasBucket(customerId) || directory.isMoving(CustomerShardDirectory.bucketOf(customerId))) {
+            return false;
+        }
+
+        var sql = """
+                UPDATE customer
+                SET password = ?
+                WHERE id = ? AND password = ?
+                """;
+
+        return shardOf(customerId).update(sql, newPassword, customerId, currentPassword) > 0;
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        return directory.customerIdByEmail(email)
+                .flatMap(this::selectCustomerById)
+                .filter(customer -> customer.getEmail().equals(email));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private JdbcTemplate shardOf(long customerId) {
+        return shards.get(directory.shardOf(customerId));
+    }
+
+    private void assignIds(int shard, int bucket, List<Customer> customers) {
+        var sql = """
+                SELECT next_customer_id(?)
+                FROM generate_series(1, ?)
+                """;
+
+        List<Long> ids = shards.get(shard).queryForList(sql, Long.class, bucket, customers.size());
+        for (int i = 0; i < customers.size(); i++) {
+            customers.get(i).setId(ids.get(i));
+        }
+    }
+
+    private int deleteIds(int shard, List<Customer> customers) {
+        var sql = """
+                DELETE
+                FROM customer
+                WHERE id = ANY(?)
+                """;
+
+        return shards.get(shard).update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint",
+                    customers.stream().map(Customer::getId).toArray()));
+            return statement;
+        });
+    }
+
+    private static List<Customer> inShard(Map<Integer, Map<Integer, List<Customer>>> byShardAndBucket, int shard) {
+        return byShardAndBucket.getOrDefault(shard, Map.of()).values().stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Merges keyset pages from every shard, so customers come out in id order without
+     * holding a cursor open on each shard for the whole export.
+     */
+    private void merge(long afterId, int pageSize, long limit, Consumer<Customer> action) {
+        List<ShardCursor> cursors = IntStream.range(0, shards.size())
+                .mapToObj(shard -> new ShardCursor(shard, afterId, pageSize))
+                .toList();
+        scatter(shard -> cursors.get(shard).fill());
+
+        PriorityQueue<ShardCursor> merge = new PriorityQueue<>(Comparator.comparing(ShardCursor::peekId));
+        cursors.stream().filter(ShardCursor::hasNext).forEach(merge::add);
+        for (long taken = 0; taken < limit && !merge.isEmpty(); taken++) {
+            ShardCursor cursor = merge.poll();
+            action.accept(cursor.next());
+            if (cursor.hasNext()) {
+                merge.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Every listing, export and bulk insert fans out on threads of its own, so a slow
+     * export does not hold up anyone else's page. Without virtual threads the pool has
+     * room for {@code parallelRequests} callers at once; past that a shard query runs on
+     * the calling thread instead of queueing behind other requests.
+     */
+    private static ExecutorService scatterExecutor(int maxThreads) {
+        if (VirtualThreads.isSupported()) {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxThreads, maxThreads,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "customer-shard-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("customer shards are closed");
+                    }
+                    runnable.run();
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private <T> List<T> scatter(Function<Integer, T> query) {
+        List<CompletableFuture<T>> futures = IntStream.range(0, shards.size())
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), executor))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private final class ShardCursor {
+        private final int shard;
+        private final int pageSize;
+        private final Deque<Customer> page = new ArrayDeque<>();
+        private long lastId;
+        private boolean exhausted = false;
+
+        private ShardCursor(int shard, long afterId, int pageSize) {
+            this.shard = shard;
+            this.lastId = afterId;
+            this.pageSize = pageSize;
+        }
+
+        private ShardCursor fill() {
+            var sql = """
+                    SELECT id, name, email, password, age, version
+                    FROM customer
+                    WHERE id > ?
+                    ORDER BY id
+                    LIMIT ?
+                    """;
+
+            // after a rebalance moved a bucket away its rows linger here until the old
+            // copy is deleted; skipping them can leave a page empty, so keep reading
+            // until a row turns up or the shard runs out
+            while (page.isEmpty() && !exhausted) {
+                List<Customer> rows = shards.get(shard).query(sql, customerRowMapper, lastId, pageSize);
+                exhausted = rows.size() < pageSize;
+                if (!rows.isEmpty()) {
+                    lastId = rows.get(rows.size() - 1).getId();
+                }
+                rows.stream()
+                        .filter(customer -> directory.shardOf(customer.getId()) == shard)
+                        .forEach(page::add);
+            }
+            return this;
+        }
+
+        private boolean hasNext() {
+            return !fill().page.isEmpty();
+        }
+
+        private long peekId() {
+            return page.peekFirst().getId();
+        }
+
+        private Customer next() {
+            return page.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.borjas.customer;
+
+import com.borjas.datasource.DataSourcePools;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Customers hashed over the databases in {@code customer.sharding.shard-urls}, picked
+ * with {@code customer.dao.implementation: sharded}. The bucket assignment and the
+ * email directory live in the main database.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "customer.sharding", name = "enabled", havingValue = "true")
+public class CustomerShardingConfig {
+
+    @Bean
+    public CustomerShardDirectory customerShardDirectory(DataSource dataSource,
+                                                         JdbcTemplate jdbcTemplate,
+                                                         @Value("${spring.flyway.enabled:true}") boolean migrate,
+                                                         @Value("${customer.sharding.buckets:1024}") int buckets,
+                                                         @Value("${customer.sharding.shard-urls}") List<String> shardUrls) {
+        if (migrate) {
+            // its own history table, next to the one of the main schema
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/shard-directory")
+                    .table("flyway_shard_directory_history")
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+        }
+
+        CustomerShardDirectory directory = new CustomerShardDirectory(jdbcTemplate, buckets);
+        directory.initialize(shardUrls.size());
+        return directory;
+    }
+
+    @Bean("sharded")
+    public CustomerShardedDataAccessService shardedCustomerDao(DataSourceProperties properties,
+                                                               Environment environment,
+                                                               ObjectProvider<MeterRegistry> meterRegistry,
+                                                               CustomerShardDirectory directory,
+                                                               CustomerRowMapper customerRowMapper,
+                                                               @Value("${spring.flyway.enabled:true}") boolean migrate,
+                                                               @Value("${customer.sharding.shard-urls}") List<String> shardUrls,
+                                                               @Value("${customer.sharding.parallel-requests:16}") int parallelRequests) {
+        // shard pools are not beans, so Boot keeps configuring the main data source
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariDataSource shard = DataSourcePools.hikari(properties, environment, shardUrls.get(i).trim(), "customer-shard-" + i);
+            meterRegistry.ifAvailable(registry ->
+                    shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            if (migrate) {
+                Flyway.configure()
+                        .dataSource(shard)
+                        .locations("classpath:db/shard")
+                        .load()
+                        .migrate();
+            }
+            shards.add(shard);
+        }
+        return new CustomerShardedDataAccessService(shards, directory, customerRowMapper, parallelRequests);
+    }
+
+    @Bean
+    public CustomerShardRebalancer customerShardRebalancer(CustomerShardDirectory directory,
+                                                           CustomerShardedDataAccessService shardedCustomerDao,
+                                                           CustomerRowMapper customerRowMapper,
+                                                           @Value("${customer.sharding.rebalance.grace:15s}") Duration grace) {
+        return new CustomerShardRebalancer(directory, shardedCustomerDao, customerRowMapper, grace);
+    }
+
+    @Bean
+    public CustomerEmailClaimReconciler customerEmailClaimReconciler(CustomerShardDirectory directory,
+                                                                     CustomerShardedDataAccessService shardedCustomerDao,
+                                                                     @Value("${customer.sharding.reconcile.grace:5m}") Duration grace) {
+        return new CustomerEmailClaimReconciler(directory, shardedCustomerDao, grace);
+    }
+
+    /**
+     * A one-off run that rebalances and exits, for after shard-urls gained a shard.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "customer.sharding.rebalance", name = "run", havingValue = "true")
+    public CommandLineRunner customerShardRebalanceRunner(CustomerShardRebalancer rebalancer,
+                                                          ConfigurableApplicationContext context) {
+        return args -> {
+            int moved = rebalancer.rebalance();
+            log.info("Customer shard rebalance finished, {} buckets moved", moved);
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+
+    /**
+     * A one-off run that copies the customers of the unsharded table onto the shards
+     * and exits, for switching an existing install to the sharded DAO.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "customer.sharding.backfill", name = "run", havingValue = "true")
+    public CommandLineRunner customerShardBackfillRunner(JdbcTemplate jdbcTemplate,
+                                                         CustomerShardDirectory directory,
+                                                         CustomerShardedDataAccessService shardedCustomerDao,
+                                                         CustomerRowMapper customerRowMapper,
+                                                         ConfigurableApplicationContext context) {
+        return args -> {
+            long copied = new CustomerShardBackfill(jdbcTemplate, directory, shardedCustomerDao, customerRowMapper).backfill();
+            log.info("Customer shard backfill finished, {} customers copied", copied);
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+}
@@ -0,0 +1,290 @@
+package com.borjas.customer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, columnar copy of the customer table for read-mostly nodes.
+ * <p>
+ * Ids, ages and versions are primitive columns sorted by id. Names, emails and
+ * password hashes are length-prefixed UTF-8 records in direct {@link ByteBuffer}
+ * slabs, so the bulk of the data lives outside the Java heap. Lookups by id and
+ * email go through open-addressing hash indexes made of primitive arrays, and
+ * {@link Customer} entities are only created for rows that are returned.
+ */
+public final class CustomerSnapshot {
+    private static final int DEFAULT_SLAB_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+    private static final int EMPTY_SLOT = 0;
+
+    private final int size;
+    private final long[] ids;
+    private final int[] ages;
+    private final long[] versions;
+    // slab index in the high 32 bits, position inside the slab in the low 32 bits
+    private final long[] recordAddresses;
+    private final ByteBuffer[] slabs;
+    // slots hold row + 1, so 0 marks an empty slot
+    private final int[] idSlots;
+    private final int[] emailSlots;
+
+    private CustomerSnapshot(int size, long[] ids, int[] ages, long[] versions,
+                             long[] recordAddresses, ByteBuffer[] slabs) {
+        this.size = size;
+        this.ids = ids;
+        this.ages = ages;
+        this.versions = versions;
+        this.recordAddresses = recordAddresses;
+        this.slabs = slabs;
+        this.idSlots = new int[tableSize(size)];
+        this.emailSlots = new int[tableSize(size)];
+
+        for (int row = 0; row < size; row++) {
+            insertSlot(idSlots, mix(Long.hashCode(ids[row])), row);
+            insertSlot(emailSlots, mix(emailHash(row)), row);
+        }
+    }
+
+    public static CustomerSnapshot empty() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder(DEFAULT_SLAB_BYTES);
+    }
+
+    static Builder builder(int slabBytes) {
+        return new Builder(slabBytes);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Customer customerAt(int row) {
+        long address = recordAddresses[row];
+        ByteBuffer slab = slabs[(int) (address >>> 32)];
+        int position = (int) address;
+
+        int nameLength = Short.toUnsignedInt(slab.getShort(position));
+        String name = readString(slab, position + 2, nameLength);
+        position += 2 + nameLength;
+
+        int emailLength = Short.toUnsignedInt(slab.getShort(position));
+        String email = readString(slab, position + 2, emailLength);
+        position += 2 + emailLength;
+
+        int passwordLength = Short.toUnsignedInt(slab.getShort(position));
+        String password = readString(slab, position + 2, passwordLength);
+
+        Customer customer = new Customer(ids[row], name, email, password, ages[row]);
+        customer.setVersion(versions[row]);
+        return customer;
+    }
+
+    public long idAt(int row) {
+        return ids[row];
+    }
+
+    public int rowOfId(long id) {
+        int mask = idSlots.length - 1;
+        for (int slot = mix(Long.hashCode(id)) & mask; ; slot = (slot + 1) & mask) {
+            int entry = idSlots[slot];
+            if (entry == EMPTY_SLOT) {
+                return -1;
+            }
+            if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public int rowOfEmail(String email) {
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        int mask = emailSlots.length - 1;
+        for (int slot = mix(email.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = emailSlots[slot];
+            if (entry == EMPTY_SLOT) {
+                return -1;
+            }
+            if (emailEquals(entry - 1, emailBytes)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Index of the first row whose id is greater than {@code afterId}.
+     */
+    public int firstRowAfter(long afterId) {
+        int row = Arrays.binarySearch(ids, 0, size, afterId);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    public void forEach(Consumer<Customer> action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(customerAt(row));
+        }
+    }
+
+    public long heapBytes() {
+        return 8L * ids.length + 4L * ages.length + 8L * versions.length
+                + 8L * recordAddresses.length + 4L * idSlots.length + 4L * emailSlots.length;
+    }
+
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer slab : slabs) {
+            bytes += slab.capacity();
+        }
+        return bytes;
+    }
+
+    private int emailHash(int row) {
+        return readEmail(row).hashCode();
+    }
+
+    private String readEmail(int row) {
+        long address = recordAddresses[row];
+        ByteBuffer slab = slabs[(int) (address >>> 32)];
+        int position = (int) address;
+        position += 2 + Short.toUnsignedInt(slab.getShort(position));
+        return readString(slab, position + 2, Short.toUnsignedInt(slab.getShort(position)));
+    }
+
+    private boolean emailEquals(int row, byte[] emailBytes) {
+        long address = recordAddresses[row];
+        ByteBuffer slab = slabs[(int) (address >>> 32)];
+        int position = (int) address;
+        position += 2 + Short.toUnsignedInt(slab.getShort(position));
+
+        int length = Short.toUnsignedInt(slab.getShort(position));
+        if (length != emailBytes.length) {
+            return false;
+        }
+        position += 2;
+        for (int i = 0; i < length; i++) {
+            if (slab.get(position + i) != emailBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readString(ByteBuffer slab, int position, int length) {
+        byte[] bytes = new byte[length];
+        slab.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void insertSlot(int[] slots, int hash, int row) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+    }
+
+    private static int tableSize(int size) {
+        // keep the load factor at or below 0.5 so linear probing stays short
+        int tableSize = 2;
+        while (tableSize < size * 2L) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    private static int mix(int hash) {
+        // murmur3 finalizer, spreads sequential ids across the table
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    public static final class Builder {
+        private final int slabBytes;
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        private ByteBuffer currentSlab;
+        private int size;
+        private long[] ids = new long[1024];
+        private int[] ages = new int[1024];
+        private long[] versions = new long[1024];
+        private long[] recordAddresses = new long[1024];
+
+        private Builder(int slabBytes) {
+            this.slabBytes = slabBytes;
+        }
+
+        /**
+         * Adds a customer; customers must be added in ascending id order.
+         */
+        public Builder add(Customer customer) {
+            if (size > 0 && customer.getId() <= ids[size - 1]) {
+                throw new IllegalArgumentException(
+                        "customers must be added in ascending id order, got [%s] after [%s]"
+                                .formatted(customer.getId(), ids[size - 1])
+                );
+            }
+
+            byte[] name = encode(customer.getName());
+            byte[] email = encode(customer.getEmail());
+            byte[] password = encode(customer.getPassword());
+            int recordBytes = 6 + name.length + email.length + password.length;
+
+            if (currentSlab == null || currentSlab.remaining() < recordBytes) {
+                currentSlab = ByteBuffer.allocateDirect(Math.max(slabBytes, recordBytes));
+                slabs.add(currentSlab);
+            }
+
+            ensureCapacity(size + 1);
+            ids[size] = customer.getId();
+            ages[size] = customer.getAge();
+            versions[size] = customer.getVersion() == null ? 0L : customer.getVersion();
+            recordAddresses[size] = ((long) (slabs.size() - 1) << 32) | currentSlab.position();
+
+            currentSlab.putShort((short) name.length).put(name);
+            currentSlab.putShort((short) email.length).put(email);
+            currentSlab.putShort((short) password.length).put(password);
+            size++;
+            return this;
+        }
+
+        public CustomerSnapshot build() {
+            return new CustomerSnapshot(
+                    size,
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(ages, size),
+                    Arrays.copyOf(versions, size),
+                    Arrays.copyOf(recordAddresses, size),
+                    slabs.toArray(ByteBuffer[]::new)
+            );
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, newCapacity);
+            ages = Arrays.copyOf(ages, newCapacity);
+            versions = Arrays.copyOf(versions, newCapacity);
+            recordAddresses = Arrays.copyOf(recordAddresses, newCapacity);
+        }
+
+        private static byte[] encode(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_FIELD_BYTES) {
+                throw new IllegalArgumentException("customer field longer than %s bytes".formatted(MAX_FIELD_BYTES));
+            }
+            return bytes;
+        }
+    }
+}
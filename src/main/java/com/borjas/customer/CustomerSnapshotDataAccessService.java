@@ -0,0 +1,227 @@
+package com.borjas.customer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Serves reads from the loaded {@link CustomerSnapshot}. Writes go to the JDBC DAO and
+ * the rows they return are kept on the heap in front of the snapshot, so this node
+ * reads its own writes; the next reload folds them into the snapshot and drops them.
+ */
+@Repository("snapshot")
+public class CustomerSnapshotDataAccessService implements CustomerDao {
+
+    // readers always see one complete snapshot, reloads swap in a new one
+    private final AtomicReference<CustomerSnapshot> snapshot;
+    private final CustomerDao writeDelegate;
+    // rows written since the snapshot was loaded, by id; a null customer is a delete
+    private final ConcurrentSkipListMap<Long, Change> changes = new ConcurrentSkipListMap<>();
+    // the customer each written email was given to, checked against changes on read
+    private final Map<String, Long> changedEmails = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    public CustomerSnapshotDataAccessService(@Qualifier("jdbc") CustomerDao writeDelegate) {
+        this.snapshot = new AtomicReference<>(CustomerSnapshot.empty());
+        this.writeDelegate = writeDelegate;
+    }
+
+    public void replaceSnapshot(CustomerSnapshot newSnapshot) {
+        replaceSnapshot(newSnapshot, Long.MAX_VALUE);
+    }
+
+    /**
+     * A reload takes the mark before it starts reading the table, so every write
+     * recorded before the mark is already in the new snapshot and can be dropped.
+     */
+    public long markChanges() {
+        return changeSequence.get();
+    }
+
+    public void replaceSnapshot(CustomerSnapshot newSnapshot, long mark) {
+        snapshot.set(newSnapshot);
+        changes.values().removeIf(change -> change.sequence() <= mark);
+        changedEmails.values().removeIf(id -> !changes.containsKey(id));
+    }
+
+    public CustomerSnapshot currentSnapshot() {
+        return snapshot.get();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>(snapshot.get().size());
+        forEachCustomer(customers::add);
+        return customers;
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        List<Customer> customers = new ArrayList<>(Math.min(limit, 1024));
+        merge(afterId, limit, customers::add);
+        return customers;
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        merge(Long.MIN_VALUE, Long.MAX_VALUE, action);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        Change change = changes.get(customerId);
+        if (change != null) {
+            return change.customer();
+        }
+        CustomerSnapshot current = snapshot.get();
+        int row = current.rowOfId(customerId);
+        return row < 0 ? Optional.empty() : Optional.of(current.customerAt(row));
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        writeDelegate.insertCustomer(customer);
+        record(customer.getId(), customer);
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        writeDelegate.insertCustomers(customers);
+        customers.stream()
+                .filter(customer -> customer.getId() != null)
+                .forEach(customer -> record(customer.getId(), customer));
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return selectUserByEmail(email).isPresent();
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        Set<String> existing = new HashSet<>();
+        for (String email : emails) {
+            if (existsCustomerWithEmail(email)) {
+                existing.add(email);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return selectCustomerById(id).isPresent();
+    }
+
+    @Override
+    public boolean deleteCustomerById(Long customerId) {
+        boolean deleted = writeDelegate.deleteCustomerById(customerId);
+        if (deleted) {
+            record(customerId, null);
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer update) {
+        Optional<Customer> updated = writeDelegate.updateCustomer(update);
+        updated.ifPresent(customer -> record(customer.getId(), customer));
+        return updated;
+    }
+
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        boolean updated = writeDelegate.updatePassword(customerId, currentPassword, newPassword);
+        if (updated) {
+            selectCustomerById(customerId).ifPresent(customer -> {
+                customer.setPassword(newPassword);
+                record(customerId, customer);
+            });
+        }
+        return updated;
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        Long changedId = changedEmails.get(email);
+        if (changedId != null) {
+            Optional<Customer> changed = selectCustomerById(changedId)
+                    .filter(customer -> customer.getEmail().equals(email));
+            if (changed.isPresent()) {
+                return changed;
+            }
+        }
+        CustomerSnapshot current = snapshot.get();
+        int row = current.rowOfEmail(email);
+        if (row < 0) {
+            return Optional.empty();
+        }
+        // the snapshot's row may since have changed its email or been deleted
+        Change change = changes.get(current.idAt(row));
+        if (change != null) {
+            return change.customer().filter(customer -> customer.getEmail().equals(email));
+        }
+        return Optional.of(current.customerAt(row));
+    }
+
+    private void record(long customerId, Customer customer) {
+        Customer copy = customer == null ? null : customer.copy();
+        changes.put(customerId, new Change(Optional.ofNullable(copy), changeSequence.incrementAndGet()));
+        if (copy != null) {
+            changedEmails.put(copy.getEmail(), customerId);
+        }
+    }
+
+    /**
+     * Walks the snapshot and the changes after {@code afterId} together in id order,
+     * with a change taking the place of the snapshot row it rewrote.
+     */
+    private void merge(long afterId, long limit, Consumer<Customer> action) {
+        CustomerSnapshot current = snapshot.get();
+        NavigableMap<Long, Change> pending = changes.tailMap(afterId, false);
+        Iterator<Map.Entry<Long, Change>> changed = pending.entrySet().iterator();
+        Map.Entry<Long, Change> nextChange = changed.hasNext() ? changed.next() : null;
+        int row = current.firstRowAfter(afterId);
+
+        long taken = 0;
+        while (taken < limit && (row < current.size() || nextChange != null)) {
+            long rowId = row < current.size() ? current.idAt(row) : Long.MAX_VALUE;
+            Optional<Customer> next;
+            if (nextChange != null && nextChange.getKey() <= rowId) {
+                next = nextChange.getValue().customer();
+                if (nextChange.getKey() == rowId) {
+                    row++;
+                }
+                nextChange = changed.hasNext() ? changed.next() : null;
+            } else {
+                next = Optional.of(current.customerAt(row++));
+            }
+            if (next.isPresent()) {
+                action.accept(next.get());
+                taken++;
+            }
+        }
+    }
+
+    private record Change(Optional<Customer> customer, long sequence) {
+        // callers may modify what they get back, the recorded row must not change
+        @Override
+        public Optional<Customer> customer() {
+            return customer.map(Customer::copy);
+        }
+    }
+}
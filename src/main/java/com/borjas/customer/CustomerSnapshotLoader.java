@@ -0,0 +1,43 @@
+package com.borjas.customer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "customer.snapshot", name = "enabled", havingValue = "true")
+public class CustomerSnapshotLoader {
+
+    private final CustomerDao customerDao;
+    private final CustomerSnapshotDataAccessService snapshotDataAccessService;
+
+    public CustomerSnapshotLoader(@Qualifier("jdbc") CustomerDao customerDao,
+                                  CustomerSnapshotDataAccessService snapshotDataAccessService) {
+        this.customerDao = customerDao;
+        this.snapshotDataAccessService = snapshotDataAccessService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${customer.snapshot.reload-interval:PT1H}",
+            initialDelayString = "${customer.snapshot.reload-interval:PT1H}")
+    public CustomerSnapshot reload() {
+        long start = System.nanoTime();
+        // writes recorded before this point are in the table the snapshot is read from
+        long mark = snapshotDataAccessService.markChanges();
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder();
+        // streams the table ordered by id, which is the order the snapshot needs
+        customerDao.forEachCustomer(builder::add);
+        CustomerSnapshot snapshot = builder.build();
+        snapshotDataAccessService.replaceSnapshot(snapshot, mark);
+
+        log.info("Loaded customer snapshot with {} customers ({} bytes heap, {} bytes off-heap) in {} ms",
+                snapshot.size(), snapshot.heapBytes(), snapshot.offHeapBytes(),
+                (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+}
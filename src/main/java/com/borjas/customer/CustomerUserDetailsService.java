@@ -2,22 +2,42 @@ package com.borjas.customer;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomerUserDetailsService implements UserDetailsService {
+public class CustomerUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final CustomerDao customerDao;
 
-    public CustomerUserDetailsService(@Qualifier("jpa") CustomerDao customerDao) {
+    public CustomerUserDetailsService(@Qualifier("customerDao") CustomerDao customerDao) {
         this.customerDao = customerDao;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return customerDao.selectUserByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("username " + username + " not found"));
     }
+
+    /**
+     * Writes the rehashed password without touching the version, so a login does not
+     * change the customer's ETag; only if the stored hash is still the one that was
+     * verified, so a password changed meanwhile is not overwritten.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Customer current = (Customer) user;
+        // the login already succeeded, a rehash that loses a race is retried on the next one
+        if (!customerDao.updatePassword(current.getId(), current.getPassword(), newPassword)) {
+            return current;
+        }
+        Customer rehashed = current.copy();
+        rehashed.setPassword(newPassword);
+        return rehashed;
+    }
 }
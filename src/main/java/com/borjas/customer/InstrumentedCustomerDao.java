@@ -0,0 +1,199 @@
+package com.borjas.customer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Measures another {@link CustomerDao} per method, tagged with the implementation name.
+ * <p>
+ * Calls, errors and returned rows are counted on every call, which only costs a few
+ * uncontended additions. Latency needs two clock reads and a histogram update, so only
+ * a {@code sampleRate} fraction of the calls is timed.
+ */
+public class InstrumentedCustomerDao implements CustomerDao, MeterBinder {
+
+    private final CustomerDao delegate;
+    private final String implementation;
+    private final double sampleRate;
+
+    private final Operation selectAllCustomers = new Operation("selectAllCustomers");
+    private final Operation selectCustomers = new Operation("selectCustomers");
+    private final Operation forEachCustomer = new Operation("forEachCustomer");
+    private final Operation selectCustomerById = new Operation("selectCustomerById");
+    private final Operation insertCustomer = new Operation("insertCustomer");
+    private final Operation insertCustomers = new Operation("insertCustomers");
+    private final Operation existsCustomerWithEmail = new Operation("existsCustomerWithEmail");
+    private final Operation selectExistingEmails = new Operation("selectExistingEmails");
+    private final Operation existsCustomerWithId = new Operation("existsCustomerWithId");
+    private final Operation deleteCustomerById = new Operation("deleteCustomerById");
+    private final Operation updateCustomer = new Operation("updateCustomer");
+    private final Operation updatePassword = new Operation("updatePassword");
+    private final Operation selectUserByEmail = new Operation("selectUserByEmail");
+    private final List<Operation> operations = List.of(
+            selectAllCustomers, selectCustomers, forEachCustomer, selectCustomerById, insertCustomer,
+            insertCustomers, existsCustomerWithEmail, selectExistingEmails, existsCustomerWithId,
+            deleteCustomerById, updateCustomer, updatePassword, selectUserByEmail
+    );
+
+    public InstrumentedCustomerDao(CustomerDao delegate, String implementation, double sampleRate) {
+        this.delegate = delegate;
+        this.implementation = implementation;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return selectAllCustomers.record(delegate::selectAllCustomers, List::size);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return selectCustomers.record(() -> delegate.selectCustomers(afterId, limit), List::size);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        long[] rows = new long[1];
+        forEachCustomer.record(() -> {
+            delegate.forEachCustomer(customer -> {
+                rows[0]++;
+                action.accept(customer);
+            });
+            return null;
+        }, ignored -> rows[0]);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        return selectCustomerById.record(() -> delegate.selectCustomerById(customerId), InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        insertCustomer.record(() -> {
+            delegate.insertCustomer(customer);
+            return null;
+        }, ignored -> 1);
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        insertCustomers.record(() -> {
+            delegate.insertCustomers(customers);
+            return null;
+        }, ignored -> customers.stream().filter(customer -> customer.getId() != null).count());
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return existsCustomerWithEmail.record(() -> delegate.existsCustomerWithEmail(email), InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return selectExistingEmails.record(() -> delegate.selectExistingEmails(emails), Set::size);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return existsCustomerWithId.record(() -> delegate.existsCustomerWithId(id), InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public boolean deleteCustomerById(Long customerId) {
+        return deleteCustomerById.record(() -> delegate.deleteCustomerById(customerId), InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer update) {
+        return updateCustomer.record(() -> delegate.updateCustomer(update), InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public boolean updatePassword(Long customerId, String currentPassword, String newPassword) {
+        return updatePassword.record(() -> delegate.updatePassword(customerId, currentPassword, newPassword),
+                InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        return selectUserByEmail.record(() -> delegate.selectUserByEmail(email), InstrumentedCustomerDao::rows);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Operation operation : operations) {
+            operation.bindTo(registry);
+        }
+    }
+
+    private static long rows(Optional<?> result) {
+        return result.isPresent() ? 1 : 0;
+    }
+
+    private static long rows(boolean result) {
+        return result ? 1 : 0;
+    }
+
+    private final class Operation {
+        private final String method;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private volatile Timer latency;
+
+        private Operation(String method) {
+            this.method = method;
+        }
+
+        private <T> T record(Supplier<T> call, ToLongFunction<T> rowCount) {
+            calls.increment();
+            Timer timer = latency;
+            long start = timer != null && ThreadLocalRandom.current().nextDouble() < sampleRate ? System.nanoTime() : 0;
+            try {
+                T result = call.get();
+                rows.add(rowCount.applyAsLong(result));
+                return result;
+            } catch (RuntimeException e) {
+                errors.increment();
+                throw e;
+            } finally {
+                if (start != 0) {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private void bindTo(MeterRegistry registry) {
+            FunctionCounter.builder("customer.dao.calls", calls, LongAdder::sum)
+                    .description("Calls to the customer DAO")
+                    .tags("implementation", implementation, "method", method)
+                    .register(registry);
+            FunctionCounter.builder("customer.dao.errors", errors, LongAdder::sum)
+                    .description("Customer DAO calls that threw")
+                    .tags("implementation", implementation, "method", method)
+                    .register(registry);
+            FunctionCounter.builder("customer.dao.rows", rows, LongAdder::sum)
+                    .description("Customers, or emails, returned or written by the customer DAO")
+                    .tags("implementation", implementation, "method", method)
+                    .register(registry);
+            latency = Timer.builder("customer.dao.latency")
+                    .description("Latency of the sampled customer DAO calls")
+                    .tags("implementation", implementation, "method", method)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.borjas.customer;
+
+import com.borjas.jwt.JWTUtil;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Same API as {@link CustomerController}, served by WebFlux when the reactive profile is active.
+ */
+@RestController
+@RequestMapping("api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveCustomerController {
+    private final ReactiveCustomerService customerService;
+    private final JWTUtil jwtUtil;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<CustomerDTO>>> getCustomers(@RequestParam(value = "after", required = false) Long after,
+                                                                @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.getCustomers(after, limit).map(CustomerPage::toResponse);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<Flux<CustomerDTO>> exportCustomers(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        // gzip comes from server.compression in the reactive profile, which honours the
+        // client's Accept-Encoding and flushes each chunk as the codec writes it
+        CustomerExportFormat exportFormat = CustomerExportFormat.fromValue(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .body(customerService.exportCustomers());
+    }
+
+    @GetMapping("/{customerId}")
+    public Mono<ResponseEntity<CustomerDTO>> getCustomer(@PathVariable("customerId") Long customerId) {
+        return customerService.getCustomer(customerId)
+                .map(customer -> ResponseEntity.ok()
+                        .eTag(String.valueOf(customer.version()))
+                        .body(customer));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Void>> registerCustomer(@RequestBody CustomerRegistrationRequest request) {
+        return customerService.addCustomer(request)
+                .map(customer -> ResponseEntity.ok()
+                        .header(HttpHeaders.AUTHORIZATION,
+                                jwtUtil.issueToken(customer.username(), customer.id(), customer.roles(), "ROLE_ADMIN"))
+                        .build());
+    }
+
+    @PostMapping("/bulk")
+    public Mono<List<CustomerRegistrationResult>> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
+    @DeleteMapping("/{customerId}")
+    public Mono<Void> deleteCustomer(@PathVariable("customerId") Long customerId) {
+        return customerService.deleteCustomerById(customerId);
+    }
+
+    @PutMapping("/{customerId}")
+    public Mono<Void> updateCustomer(@PathVariable("customerId") Long customerId,
+                                     @RequestBody CustomerUpdateRequest updateRequest,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> customerService.updateCustomer(
+                customerId, updateRequest, CustomerController.parseVersion(ifMatch)
+        ));
+    }
+}
@@ -0,0 +1,15 @@
+package com.borjas.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCustomerDao {
+    Flux<Customer> selectAllCustomers();
+    Flux<Customer> selectCustomers(Long afterId, int limit);
+    Mono<Customer> selectCustomerById(Long customerId);
+    Mono<Customer> insertCustomer(Customer customer);
+    Mono<Boolean> existsCustomerWithEmail(String email);
+    Mono<Boolean> deleteCustomerById(Long customerId);
+    Mono<Customer> updateCustomer(Customer update);
+    Mono<Customer> selectUserByEmail(String email);
+}
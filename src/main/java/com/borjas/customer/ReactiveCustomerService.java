@@ -0,0 +1,143 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.DuplicateResourceException;
+import com.borjas.exeption.PreconditionFailedException;
+import com.borjas.exeption.RequestValidationException;
+import com.borjas.exeption.ResourceNotFoundException;
+import com.borjas.security.BoundedPasswordExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link CustomerService} for the reactive stack.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveCustomerDao customerDao;
+    private final CustomerService customerService;
+    private final PasswordEncoder passwordEncoder;
+    private final CustomerDTOMapper customerDTOMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BoundedPasswordExecutor passwordExecutor;
+
+    public ReactiveCustomerService(ReactiveCustomerDao customerDao, CustomerService customerService, PasswordEncoder passwordEncoder, CustomerDTOMapper customerDTOMapper, ApplicationEventPublisher eventPublisher, BoundedPasswordExecutor passwordExecutor) {
+        this.customerDao = customerDao;
+        this.customerService = customerService;
+        this.passwordEncoder = passwordEncoder;
+        this.customerDTOMapper = customerDTOMapper;
+        this.eventPublisher = eventPublisher;
+        this.passwordExecutor = passwordExecutor;
+    }
+
+    public Mono<CustomerPage> getCustomers(Long after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1) {
+            return Mono.error(new RequestValidationException("limit must be greater than zero"));
+        }
+        int boundedPageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        // fetch one extra row to know whether there is a next page
+        return customerDao.selectCustomers(after == null ? 0L : after, boundedPageSize + 1)
+                .map(customerDTOMapper)
+                .collectList()
+                .map(customers -> {
+                    if (customers.size() <= boundedPageSize) {
+                        return new CustomerPage(customers, null);
+                    }
+                    List<CustomerDTO> page = customers.subList(0, boundedPageSize);
+                    return new CustomerPage(page, page.get(boundedPageSize - 1).id());
+                });
+    }
+
+    public Flux<CustomerDTO> exportCustomers() {
+        return customerDao.selectAllCustomers().map(customerDTOMapper);
+    }
+
+    public Mono<CustomerDTO> getCustomer(Long customerId) {
+        return customerDao.selectCustomerById(customerId)
+                .map(customerDTOMapper)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId))));
+    }
+
+    public Mono<CustomerDTO> addCustomer(CustomerRegistrationRequest registrationRequest) {
+        return Mono.defer(() -> {
+            // hash on the password pool while the uniqueness check runs, as the servlet stack does
+            BoundedPasswordExecutor.Task<String> passwordHash =
+                    passwordExecutor.submit(() -> passwordEncoder.encode(registrationRequest.password()));
+
+            return customerDao.existsCustomerWithEmail(registrationRequest.email())
+                    .flatMap(taken -> {
+                        if (taken) {
+                            passwordHash.cancel();
+                            return Mono.error(new DuplicateResourceException("email already taken"));
+                        }
+                        // join() parks until the hash is ready, never on an event loop thread
+                        return Mono.fromCallable(passwordHash::join).subscribeOn(Schedulers.boundedElastic());
+                    })
+                    .flatMap(password -> customerDao.insertCustomer(new Customer(
+                            registrationRequest.name(),
+                            registrationRequest.email(),
+                            password,
+                            registrationRequest.age()
+                    )))
+                    .map(customerDTOMapper)
+                    .doOnCancel(passwordHash::cancel);
+        });
+    }
+
+    public Mono<List<CustomerRegistrationResult>> addCustomers(List<CustomerRegistrationRequest> registrationRequests) {
+        // bulk registration is dominated by hashing on the bounded password pool and a JDBC
+        // batch, neither gains anything from R2DBC, so reuse the blocking path off the event loop
+        return Mono.fromCallable(() -> customerService.addCustomers(registrationRequests))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Void> deleteCustomerById(Long customerId) {
+        return customerDao.deleteCustomerById(customerId)
+                .flatMap(deleted -> deleted
+                        ? Mono.<Void>fromRunnable(() -> eventPublisher.publishEvent(new CustomerChangedEvent(customerId)))
+                        : Mono.error(new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId))));
+    }
+
+    public Mono<Void> updateCustomer(Long customerId, CustomerUpdateRequest updateRequest, Long expectedVersion) {
+        if (updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null) {
+            return Mono.error(new RequestValidationException("no data changes found"));
+        }
+
+        Customer update = new Customer();
+        update.setId(customerId);
+        update.setName(updateRequest.name());
+        update.setEmail(updateRequest.email());
+        update.setAge(updateRequest.age());
+        update.setVersion(expectedVersion);
+
+        return customerDao.updateCustomer(update)
+                .map(updated -> {
+                    eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+                    return updated;
+                })
+                // nothing was written: find out whether the customer is missing, stale or unchanged
+                .switchIfEmpty(Mono.defer(() -> customerDao.selectCustomerById(customerId)
+                        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId))))
+                        .flatMap(current -> {
+                            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                                return Mono.error(new PreconditionFailedException(
+                                        "customer with id [%s] was modified concurrently".formatted(customerId)
+                                ));
+                            }
+                            return Mono.error(new RequestValidationException("no data changes found"));
+                        })))
+                .then();
+    }
+}
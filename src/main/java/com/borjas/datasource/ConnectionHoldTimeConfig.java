@@ -0,0 +1,37 @@
+package com.borjas.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.connections", name = "track-hold-time", havingValue = "true", matchIfMissing = true)
+public class ConnectionHoldTimeConfig {
+
+    /**
+     * Wraps the data source bean itself, so JPA, JdbcTemplate and the transaction
+     * managers all hand out tracked connections; Boot's pool metrics still unwrap it.
+     */
+    @Bean
+    public static BeanPostProcessor holdTimeTrackingDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${datasource.connections.hold-threshold:2s}") Duration threshold,
+            @Value("${datasource.connections.capture-stack:true}") boolean captureStack) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof HoldTimeTrackingDataSource)) {
+                    return new HoldTimeTrackingDataSource(dataSource, meterRegistry::getIfAvailable, threshold, captureStack);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.borjas.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Issues a consistency token, the time of the write, on every successful write and
+ * pins requests that send back a recent token to the primary. The window is the
+ * largest lag a replica may have and stay in rotation, so once it has passed every
+ * replica that can serve the read has replayed the write.
+ */
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration window;
+    private final Clock clock;
+
+    public ConsistencyTokenFilter(Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    ConsistencyTokenFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write || isRecent(request.getHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER))) {
+            ReadYourWrites.pinToPrimary();
+        }
+
+        try {
+            if (!write) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            TokenIssuingResponse tokenIssuingResponse = new TokenIssuingResponse(response);
+            filterChain.doFilter(request, tokenIssuingResponse);
+            // responses without a body are only committed by the container afterwards
+            if (!response.isCommitted()) {
+                tokenIssuingResponse.issueToken();
+            }
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private boolean isRecent(String token) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            long writtenAt = Long.parseLong(token.trim());
+            return Math.abs(clock.millis() - writtenAt) < window.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private final class TokenIssuingResponse extends OnCommittedResponseWrapper {
+        private boolean issued;
+
+        private TokenIssuingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            issueToken();
+        }
+
+        // stamped when the response is committed, after the write's transaction has
+        private void issueToken() {
+            if (issued || getStatus() >= 400) {
+                return;
+            }
+            issued = true;
+            setHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER, String.valueOf(clock.millis()));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.borjas.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+public final class DataSourcePools {
+
+    private DataSourcePools() {
+    }
+
+    /**
+     * A pool for another database of the same cluster: the credentials come from
+     * {@code spring.datasource} and the pool settings from {@code spring.datasource.hikari}.
+     */
+    public static HikariDataSource hikari(DataSourceProperties properties, Environment environment,
+                                          String url, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
@@ -0,0 +1,176 @@
+package com.borjas.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times how long each connection is held, from getConnection to close, tagged with the
+ * endpoint pattern of the request that held it. The pool's own usage timer shows the
+ * same time without saying who held it. Behind replica routing the connection is the
+ * lazy one, so the time includes the part before the first statement. Holds over the
+ * threshold are logged with the stack that acquired the connection, captured up front
+ * the way Hikari's leak detection does; holds expected to be long, see
+ * {@link LongConnectionHolds}, are timed but neither captured nor reported.
+ */
+@Slf4j
+public class HoldTimeTrackingDataSource extends DelegatingDataSource {
+    static final String NO_REQUEST = "none";
+    static final String UNMATCHED = "unmatched";
+
+    private final Supplier<MeterRegistry> meterRegistrySupplier;
+    private final Duration threshold;
+    private final boolean captureStack;
+    private volatile MeterRegistry meterRegistry;
+
+    public HoldTimeTrackingDataSource(DataSource targetDataSource, Supplier<MeterRegistry> meterRegistry,
+                                      Duration threshold) {
+        this(targetDataSource, meterRegistry, threshold, true);
+    }
+
+    public HoldTimeTrackingDataSource(DataSource targetDataSource, Supplier<MeterRegistry> meterRegistry,
+                                      Duration threshold, boolean captureStack) {
+        super(targetDataSource);
+        this.meterRegistrySupplier = meterRegistry;
+        this.threshold = threshold;
+        this.captureStack = captureStack;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        boolean longHoldExpected = LongConnectionHolds.isExpected();
+        Throwable acquiredBy = captureStack && !longHoldExpected ? new Throwable("Connection acquired here") : null;
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                new HoldTimeInvocationHandler(connection, System.nanoTime(), longHoldExpected, acquiredBy)
+        );
+    }
+
+    private void released(long heldNanos, boolean longHoldExpected, Throwable acquiredBy) {
+        String endpoint = currentEndpoint();
+        MeterRegistry registry = meterRegistry();
+        if (registry != null) {
+            Timer.builder("datasource.connections.held")
+                    .description("Time from acquiring a connection to closing it")
+                    .tag("endpoint", endpoint)
+                    .register(registry)
+                    .record(heldNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (heldNanos > threshold.toNanos() && !longHoldExpected) {
+            if (registry != null) {
+                Counter.builder("datasource.connections.held.long")
+                        .description("Connections held longer than datasource.connections.hold-threshold")
+                        .tag("endpoint", endpoint)
+                        .register(registry)
+                        .increment();
+            }
+            log.warn("Connection held for {} ms by {}", TimeUnit.NANOSECONDS.toMillis(heldNanos), endpoint, acquiredBy);
+        }
+    }
+
+    // the registry is created after the data source, so it is looked up on first use
+    private MeterRegistry meterRegistry() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            registry = meterRegistrySupplier.get();
+            meterRegistry = registry;
+        }
+        return registry;
+    }
+
+    /**
+     * The handler pattern, such as {@code /api/v1/customers/{customerId}}, so the tag has
+     * as many values as there are endpoints. Connections closed before dispatch, by
+     * security filters for instance, have no pattern yet.
+     */
+    static String currentEndpoint() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return NO_REQUEST;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? UNMATCHED : request.getMethod() + " " + pattern;
+    }
+
+    private final class HoldTimeInvocationHandler implements InvocationHandler {
+        private final Connection target;
+        private final long acquiredAt;
+        private final boolean longHoldExpected;
+        private final Throwable acquiredBy;
+        private boolean closed;
+
+        private HoldTimeInvocationHandler(Connection target, long acquiredAt, boolean longHoldExpected,
+                                          Throwable acquiredBy) {
+            this.target = target;
+            this.acquiredAt = acquiredAt;
+            this.longHoldExpected = longHoldExpected;
+            this.acquiredBy = acquiredBy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return target;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "close":
+                    target.close();
+                    if (!closed) {
+                        closed = true;
+                        released(System.nanoTime() - acquiredAt, longHoldExpected, acquiredBy);
+                    }
+                    return null;
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.borjas.datasource;
+
+/**
+ * Marks connections acquired by the current thread as expected to be held for long,
+ * such as the cursor behind a streaming export, so they are still timed but not
+ * reported as long holds.
+ */
+public final class LongConnectionHolds {
+    private static final ThreadLocal<Boolean> EXPECTED = new ThreadLocal<>();
+
+    private LongConnectionHolds() {
+    }
+
+    public static void expect(Runnable work) {
+        boolean alreadyExpected = isExpected();
+        EXPECTED.set(Boolean.TRUE);
+        try {
+            work.run();
+        } finally {
+            if (!alreadyExpected) {
+                EXPECTED.remove();
+            }
+        }
+    }
+
+    static boolean isExpected() {
+        return Boolean.TRUE.equals(EXPECTED.get());
+    }
+}
@@ -0,0 +1,57 @@
+package com.borjas.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins the current thread's reads to the primary, so a client that has just written
+ * does not read its change back from a replica that has not replayed it yet.
+ */
+public final class ReadYourWrites {
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    /**
+     * Carries the caller's pin into a task that runs on another thread, such as a
+     * password hash or an async response body, where the thread local is unset.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        if (!isPinnedToPrimary()) {
+            return task;
+        }
+        return () -> {
+            boolean alreadyPinned = isPinnedToPrimary();
+            pinToPrimary();
+            try {
+                return task.get();
+            } finally {
+                if (!alreadyPinned) {
+                    clear();
+                }
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable task) {
+        Supplier<Void> pinned = propagate(() -> {
+            task.run();
+            return null;
+        });
+        return pinned::get;
+    }
+
+    static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+}
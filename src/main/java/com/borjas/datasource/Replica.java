@@ -0,0 +1,44 @@
+package com.borjas.datasource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+final class Replica {
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean inRotation;
+    private volatile double lagSeconds = Double.NaN;
+
+    Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    String name() {
+        return name;
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    boolean inRotation() {
+        return inRotation;
+    }
+
+    double lagSeconds() {
+        return lagSeconds;
+    }
+
+    /**
+     * Records the latest lag, {@code null} when the replica could not be reached,
+     * and returns whether the replica moved in or out of rotation.
+     */
+    boolean update(Duration lag, Duration maxLag) {
+        lagSeconds = lag == null ? Double.NaN : lag.toNanos() / 1e9;
+        boolean healthy = lag != null && lag.compareTo(maxLag) <= 0;
+        boolean changed = healthy != inRotation;
+        inRotation = healthy;
+        return changed;
+    }
+}
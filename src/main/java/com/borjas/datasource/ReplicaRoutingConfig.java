@@ -0,0 +1,78 @@
+package com.borjas.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single pool with a primary and its read replicas behind one routing
+ * data source. Only the routing data source is a bean, so JPA, JdbcTemplate and Flyway
+ * all use it; Flyway and every read-write transaction end up on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaSet replicaSet(DataSourceProperties properties,
+                                 Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${datasource.routing.replica-urls:}") List<String> replicaUrls,
+                                 @Value("${datasource.routing.max-replica-lag:2s}") Duration maxLag,
+                                 @Value("${datasource.routing.replica-connection-timeout:1s}") Duration replicaConnectionTimeout) {
+        // the primary pool is instrumented by Boot, which unwraps the routing data source to it
+        HikariDataSource primary = DataSourcePools.hikari(properties, environment, properties.determineUrl(), ReplicaSet.PRIMARY);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourcePools.hikari(properties, environment, replicaUrls.get(i).trim(), "replica-" + (i + 1));
+            // a dead replica should fail a read, or a lag check, quickly rather than hold a thread
+            replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            meterRegistry.ifAvailable(registry ->
+                    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        return new ReplicaSet(primary, replicas, maxLag);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaSet));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ConsistencyTokenFilter> consistencyTokenFilter(
+            @Value("${datasource.routing.max-replica-lag:2s}") Duration maxLag) {
+        FilterRegistrationBean<ConsistencyTokenFilter> registration =
+                new FilterRegistrationBean<>(new ConsistencyTokenFilter(maxLag));
+        // ahead of Spring Security, so that loading the principal is pinned as well
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    // picked up by Boot's applicationTaskExecutor, which runs async MVC work such as the export
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator() {
+        return ReadYourWrites::propagate;
+    }
+}
@@ -0,0 +1,38 @@
+package com.borjas.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * The transaction is only marked read-only after the transaction manager has asked for
+ * a connection, so this must sit behind a {@code LazyConnectionDataSourceProxy}, which
+ * defers the choice until the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaSet replicaSet;
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaSet.PRIMARY, replicaSet.primary());
+        replicaSet.replicas().forEach(replica -> targets.put(replica.name(), replica.dataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.primary());
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return ReplicaSet.PRIMARY;
+        }
+        return replicaSet.readTarget(ReadYourWrites.isPinnedToPrimary());
+    }
+}
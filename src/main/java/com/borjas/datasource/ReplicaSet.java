@@ -0,0 +1,150 @@
+package com.borjas.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The primary and its read replicas. Replicas start out of rotation and join once a
+ * lag check shows them within {@code max-replica-lag}; one that falls behind or stops
+ * answering is taken out again until it catches up.
+ */
+@Slf4j
+public class ReplicaSet implements MeterBinder, AutoCloseable {
+    static final String PRIMARY = "primary";
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Function<DataSource, Duration> lagProbe;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+
+    public ReplicaSet(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this(primary, replicas, maxLag, ReplicaSet::queryLag);
+    }
+
+    ReplicaSet(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+               Function<DataSource, Duration> lagProbe) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.maxLag = maxLag;
+        this.lagProbe = lagProbe;
+    }
+
+    DataSource primary() {
+        return primary;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    /**
+     * Picks where a read-only transaction runs: the next replica in rotation, or the
+     * primary when the caller is pinned to it or no replica is healthy.
+     */
+    String readTarget(boolean pinnedToPrimary) {
+        if (!pinnedToPrimary) {
+            int size = replicas.size();
+            int start = nextReplica.getAndIncrement();
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, size));
+                if (replica.inRotation()) {
+                    replicaReads.increment();
+                    return replica.name();
+                }
+            }
+        }
+        primaryReads.increment();
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.lag-check-interval:PT1S}")
+    public void checkReplicationLag() {
+        for (Replica replica : replicas) {
+            Duration lag;
+            try {
+                lag = lagProbe.apply(replica.dataSource());
+            } catch (RuntimeException e) {
+                log.debug("Replica {} did not answer the lag check", replica.name(), e);
+                lag = null;
+            }
+
+            if (replica.update(lag, maxLag)) {
+                if (replica.inRotation()) {
+                    log.info("Replica {} is back in rotation, lag {}", replica.name(), lag);
+                } else {
+                    log.warn("Replica {} taken out of rotation, lag {}", replica.name(),
+                            lag == null ? "unknown" : lag);
+                }
+            }
+        }
+    }
+
+    private static Duration queryLag(DataSource dataSource) {
+        // a server that is not in recovery is not replicating at all, and an idle replica
+        // that has replayed everything it received has no lag however old its last commit
+        var sql = """
+                SELECT CASE
+                    WHEN NOT pg_is_in_recovery() THEN 0
+                    WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                    ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                END
+                """;
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+        Double lagSeconds = jdbcTemplate.queryForObject(sql, Double.class);
+        return Duration.ofNanos((long) ((lagSeconds == null ? 0 : lagSeconds) * 1e9));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, Replica::lagSeconds)
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .description("replication lag at the last check, NaN when the replica did not answer")
+                    .register(registry);
+            Gauge.builder("datasource.replica.in-rotation", replica, r -> r.inRotation() ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("datasource.routing.reads", primaryReads, LongAdder::sum)
+                .tag("target", PRIMARY)
+                .description("read-only transactions by the data source they were routed to")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.reads", replicaReads, LongAdder::sum)
+                .tag("target", "replica")
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
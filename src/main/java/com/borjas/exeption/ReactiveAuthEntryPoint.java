@@ -0,0 +1,51 @@
+package com.borjas.exeption;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Security filters run before any handler, so the controller advice never sees their
+ * exceptions; this writes the same {@link ApiError} the servlet entry point produces.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthEntryPoint implements ServerAuthenticationEntryPoint {
+
+    private final ObjectMapper objectMapper;
+
+    public ReactiveAuthEntryPoint(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> commence(ServerWebExchange exchange, AuthenticationException authException) {
+        ApiError apiError = new ApiError(
+                exchange.getRequest().getPath().value(),
+                authException.getMessage(),
+                HttpStatus.FORBIDDEN.value(),
+                LocalDateTime.now()
+        );
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.FORBIDDEN);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return Mono.fromCallable(() -> response.bufferFactory().wrap(toJson(apiError)))
+                .flatMap(buffer -> response.writeWith(Mono.<DataBuffer>just(buffer)));
+    }
+
+    private byte[] toJson(ApiError apiError) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(apiError);
+    }
+}
@@ -0,0 +1,62 @@
+package com.borjas.jwt;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class AuthenticatedPrincipalCache implements MeterBinder {
+
+    private final Cache<String, UserDetails> principalsBySubject;
+
+    public AuthenticatedPrincipalCache(@Value("${jwt.principal-cache.maximum-size:10000}") long maximumSize,
+                                       @Value("${jwt.principal-cache.ttl:30s}") Duration ttl) {
+        this.principalsBySubject = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public UserDetails get(String subject, Function<String, UserDetails> loader) {
+        return principalsBySubject.get(subject, loader);
+    }
+
+    public UserDetails getIfPresent(String subject) {
+        return principalsBySubject.getIfPresent(subject);
+    }
+
+    public void put(String subject, UserDetails principal) {
+        principalsBySubject.put(subject, principal);
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        // the subject is the email, which an update may have just changed, so match on id;
+        // writes are rare and the cache is bounded, so a scan is cheap enough
+        principalsBySubject.asMap().values().removeIf(principal ->
+                principal instanceof Customer customer && event.customerId().equals(customer.getId())
+        );
+    }
+
+    public CacheStats stats() {
+        return principalsBySubject.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, principalsBySubject, "jwt.principals");
+    }
+}
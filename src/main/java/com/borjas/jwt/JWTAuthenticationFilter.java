@@ -5,7 +5,10 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,14 +19,25 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JWTUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserDetailsService userDetailsService;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final TokenRevocationList revocationList;
+    private final boolean stateless;
 
-    public JWTAuthenticationFilter(JWTUtil jwtUtil, UserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
+    public JWTAuthenticationFilter(VerifiedTokenCache verifiedTokenCache,
+                                   UserDetailsService userDetailsService,
+                                   AuthenticatedPrincipalCache principalCache,
+                                   TokenRevocationList revocationList,
+                                   @Value("${jwt.stateless:false}") boolean stateless) {
+        this.verifiedTokenCache = verifiedTokenCache;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.revocationList = revocationList;
+        this.stateless = stateless;
     }
 
     @Override
@@ -38,15 +52,21 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String jwt = authHeader.substring(7);
-        String subject = jwtUtil.getSubject(jwt);
+        // signature and expiry are checked here, at most once per distinct token
+        VerifiedToken token = verifiedTokenCache.verify(jwt);
+        String subject = token.subject();
+
+        // checked after the cache so that cached tokens can still be revoked
+        if (revocationList.isRevoked(token.tokenId())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
         if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
-            if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities()
-                        );
+            UsernamePasswordAuthenticationToken authenticationToken = stateless && token.customerId() != null
+                    ? fromClaims(token)
+                    : fromUserDetails(subject);
+            if (authenticationToken != null) {
                 authenticationToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
@@ -55,4 +75,23 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken fromClaims(VerifiedToken token) {
+        JwtPrincipal principal = new JwtPrincipal(token.customerId(), token.subject(), token.roles());
+        return new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                token.roles().stream().map(SimpleGrantedAuthority::new).toList()
+        );
+    }
+
+    private UsernamePasswordAuthenticationToken fromUserDetails(String subject) {
+        UserDetails userDetails = principalCache.get(subject, userDetailsService::loadUserByUsername);
+        if (!subject.equals(userDetails.getUsername())) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities()
+        );
+    }
 }
@@ -1,6 +1,7 @@
 package com.borjas.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -8,8 +9,11 @@ import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 
@@ -17,6 +21,12 @@ import static java.time.temporal.ChronoUnit.DAYS;
 public class JWTUtil {
     private static final String SECRET_KEY = "C0bfu4ReoUbi1JqwaSnm0Uwja2qAMhrSh0jT0TgVIDErYC3xzF";
 
+    // both are immutable and thread-safe, so they are built once and shared by all requests
+    private final Key signKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(signKey)
+            .build();
+
     public String issueToken(String subject) {
         return issueToken(subject, Map.of());
     }
@@ -25,45 +35,70 @@ public class JWTUtil {
         return issueToken(subject, Map.of("scopes", scopes));
     }
 
+    public String issueToken(String subject, Long customerId, Collection<String> roles, String... scopes) {
+        return issueToken(subject, Map.of(
+                "customerId", customerId,
+                "roles", List.copyOf(roles),
+                "scopes", scopes
+        ));
+    }
+
     public String issueToken(String subject, Map<String, Object> claims) {
         String token = Jwts
                 .builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuer("borjitas.com")
                 .setIssuedAt(Date.from(Instant.now()))
                 .setExpiration(Date.from(Instant.now().plus(15, DAYS)))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
 
         return token;
     }
 
+    /**
+     * Parses and verifies the token once: signature, expiry and shape.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = getClaims(token);
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                getCustomerId(claims),
+                getStrings(claims, "roles"),
+                getStrings(claims, "scopes"),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+        );
+    }
+
     public String getSubject(String token) {
         return getClaims(token).getSubject();
     }
 
     private Claims getClaims(String token) {
-        Claims claims = Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims;
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static Long getCustomerId(Claims claims) {
+        // tokens issued before the claim existed have no customer id
+        Object customerId = claims.get("customerId");
+        return customerId instanceof Number number ? number.longValue() : null;
     }
 
-    public boolean isTokenValid(String jwt, String username) {
-        String subject = getSubject(jwt);
-        return subject.equals(username) && !isTokenExpired(jwt);
+    private static List<String> getStrings(Claims claims, String name) {
+        Object values = claims.get(name);
+        if (values instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return List.of();
     }
 
-    private boolean isTokenExpired(String jwt) {
-        Date today = Date.from(Instant.now());
-        return getClaims(jwt).getExpiration().before(today);
+    public boolean isTokenValid(String jwt, String username) {
+        // the parser already rejects expired tokens
+        return verify(jwt).subject().equals(username);
     }
 }
@@ -0,0 +1,15 @@
+package com.borjas.jwt;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Principal built only from verified token claims, used in stateless mode.
+ */
+public record JwtPrincipal(Long customerId, String username, List<String> roles) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
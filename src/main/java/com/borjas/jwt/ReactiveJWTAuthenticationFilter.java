@@ -0,0 +1,90 @@
+package com.borjas.jwt;
+
+import com.borjas.customer.ReactiveCustomerDao;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link JWTAuthenticationFilter}. Principals are loaded through
+ * R2DBC on a cache miss, so the event loop never waits on the database.
+ * <p>
+ * Not a bean on purpose: WebFlux would add every {@link WebFilter} bean to the global
+ * chain as well, it is only registered in the security chain.
+ */
+public class ReactiveJWTAuthenticationFilter implements WebFilter {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ReactiveCustomerDao customerDao;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final TokenRevocationList revocationList;
+    private final boolean stateless;
+
+    public ReactiveJWTAuthenticationFilter(VerifiedTokenCache verifiedTokenCache,
+                                           ReactiveCustomerDao customerDao,
+                                           AuthenticatedPrincipalCache principalCache,
+                                           TokenRevocationList revocationList,
+                                           boolean stateless) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.customerDao = customerDao;
+        this.principalCache = principalCache;
+        this.revocationList = revocationList;
+        this.stateless = stateless;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        return Mono.fromCallable(() -> verifiedTokenCache.verify(authHeader.substring(7)))
+                // checked after the cache so that cached tokens can still be revoked
+                .filter(token -> token.subject() != null && !revocationList.isRevoked(token.tokenId()))
+                .flatMap(token -> stateless && token.customerId() != null
+                        ? Mono.just(fromClaims(token))
+                        : fromUserDetails(token.subject()))
+                // pick the downstream chain first, chain.filter completes empty itself
+                .map(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)))
+                .defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+                .flatMap(Function.identity());
+    }
+
+    private Authentication fromClaims(VerifiedToken token) {
+        JwtPrincipal principal = new JwtPrincipal(token.customerId(), token.subject(), token.roles());
+        return new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                token.roles().stream().map(SimpleGrantedAuthority::new).toList()
+        );
+    }
+
+    private Mono<Authentication> fromUserDetails(String subject) {
+        UserDetails cached = principalCache.getIfPresent(subject);
+        Mono<UserDetails> userDetails = cached != null
+                ? Mono.just(cached)
+                : customerDao.selectUserByEmail(subject)
+                        .doOnNext(customer -> principalCache.put(subject, customer))
+                        .cast(UserDetails.class);
+
+        return userDetails
+                .filter(principal -> subject.equals(principal.getUsername()))
+                .map(principal -> new UsernamePasswordAuthenticationToken(
+                        principal, null, principal.getAuthorities()
+                ));
+    }
+}
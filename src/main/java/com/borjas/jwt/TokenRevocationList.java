@@ -0,0 +1,68 @@
+package com.borjas.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked token ids.
+ * <p>
+ * A bloom filter answers the common "not revoked" case without touching the map.
+ * Positive answers are confirmed against the exact set. Entries are dropped once
+ * the token would have expired anyway.
+ */
+@Component
+public class TokenRevocationList {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Map<String, Instant> expiryByTokenId = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private int capacity;
+
+    public TokenRevocationList(@Value("${jwt.revocation.expected-revocations:10000}") int expectedRevocations) {
+        this.capacity = Math.max(16, expectedRevocations);
+        this.filter = BloomFilter.create(capacity, FALSE_POSITIVE_RATE);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null
+                && filter.mightContain(tokenId)
+                && expiryByTokenId.containsKey(tokenId);
+    }
+
+    // writes are rare, so they are serialized to keep the filter and the map in step
+    public synchronized void add(String tokenId, Instant expiresAt) {
+        if (expiryByTokenId.put(tokenId, expiresAt) != null) {
+            return;
+        }
+        if (expiryByTokenId.size() > capacity) {
+            capacity *= 2;
+            rebuildFilter();
+        } else {
+            filter.put(tokenId);
+        }
+    }
+
+    public synchronized int prune(Instant now) {
+        int before = expiryByTokenId.size();
+        expiryByTokenId.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        int removed = before - expiryByTokenId.size();
+        if (removed > 0) {
+            rebuildFilter();
+        }
+        return removed;
+    }
+
+    public int size() {
+        return expiryByTokenId.size();
+    }
+
+    private void rebuildFilter() {
+        BloomFilter rebuilt = BloomFilter.create(capacity, FALSE_POSITIVE_RATE);
+        expiryByTokenId.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,74 @@
+package com.borjas.jwt;
+
+import com.borjas.exeption.RequestValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+@Slf4j
+@Service
+public class TokenRevocationService {
+    // a revocation committed slightly after a later-stamped one must still be picked up
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TokenRevocationList revocationList;
+    private volatile Instant lastSeenRevokedAt = Instant.EPOCH;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate, TokenRevocationList revocationList) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.revocationList = revocationList;
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.tokenId() == null || token.expiresAt() == null) {
+            throw new RequestValidationException("token cannot be revoked");
+        }
+
+        var sql = """
+                INSERT INTO revoked_token(token_id, expires_at)
+                VALUES (?, ?)
+                ON CONFLICT (token_id) DO NOTHING
+                """;
+        jdbcTemplate.update(sql, token.tokenId(), Timestamp.from(token.expiresAt()));
+        revocationList.add(token.tokenId(), token.expiresAt());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        return revocationList.isRevoked(token.tokenId());
+    }
+
+    // the first run loads every live revocation, later runs only fetch new rows
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:PT5S}")
+    public void syncRevocations() {
+        var sql = """
+                SELECT token_id, expires_at, revoked_at
+                FROM revoked_token
+                WHERE revoked_at > ? AND expires_at > now()
+                ORDER BY revoked_at
+                """;
+        Instant since = lastSeenRevokedAt.equals(Instant.EPOCH)
+                ? Instant.EPOCH
+                : lastSeenRevokedAt.minus(SYNC_OVERLAP);
+
+        jdbcTemplate.query(sql, rs -> {
+            Instant revokedAt = rs.getTimestamp("revoked_at").toInstant();
+            revocationList.add(rs.getString("token_id"), rs.getTimestamp("expires_at").toInstant());
+            if (revokedAt.isAfter(lastSeenRevokedAt)) {
+                lastSeenRevokedAt = revokedAt;
+            }
+        }, Timestamp.from(since));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval:PT10M}")
+    public void pruneExpired() {
+        int pruned = revocationList.prune(Instant.now());
+        int deleted = jdbcTemplate.update("DELETE FROM revoked_token WHERE expires_at <= now()");
+        log.debug("Pruned {} expired revocations from memory and {} from the database", pruned, deleted);
+    }
+}
@@ -0,0 +1,12 @@
+package com.borjas.jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+public record VerifiedToken(String tokenId,
+                            String subject,
+                            Long customerId,
+                            List<String> roles,
+                            List<String> scopes,
+                            Instant expiresAt) {
+}
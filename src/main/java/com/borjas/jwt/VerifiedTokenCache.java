@@ -0,0 +1,142 @@
+package com.borjas.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Remembers tokens that already passed {@link JWTUtil#verify(String)}.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token, so raw bearer tokens are
+ * never kept in memory, and expire no later than the token's own {@code exp}.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<byte[]> DIGEST_BUFFER = ThreadLocal.withInitial(() -> new byte[32]);
+
+    private final JWTUtil jwtUtil;
+    private final boolean enabled;
+    private final Clock clock;
+    private final Cache<TokenDigest, VerifiedToken> verifiedTokens;
+
+    @Autowired
+    public VerifiedTokenCache(JWTUtil jwtUtil,
+                              @Value("${jwt.token-cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.token-cache.maximum-size:50000}") long maximumSize,
+                              @Value("${jwt.token-cache.max-ttl:1h}") Duration maxTtl) {
+        this(jwtUtil, enabled, maximumSize, maxTtl, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    VerifiedTokenCache(JWTUtil jwtUtil, boolean enabled, long maximumSize, Duration maxTtl,
+                       Clock clock, Ticker ticker) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.clock = clock;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Same contract as {@link JWTUtil#verify(String)}; only a miss parses the token.
+     */
+    public VerifiedToken verify(String token) {
+        if (!enabled) {
+            return jwtUtil.verify(token);
+        }
+
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(digest);
+        if (verified != null) {
+            return verified;
+        }
+
+        // invalid tokens throw here and are never cached
+        verified = jwtUtil.verify(token);
+        verifiedTokens.put(digest, verified);
+        return verified;
+    }
+
+    public CacheStats stats() {
+        return verifiedTokens.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt.verified-tokens");
+        }
+    }
+
+    record TokenDigest(long first, long second, long third, long fourth) {
+
+        static TokenDigest of(String token) {
+            MessageDigest sha256 = SHA_256.get();
+            byte[] digest = DIGEST_BUFFER.get();
+            sha256.update(token.getBytes(StandardCharsets.US_ASCII));
+            try {
+                sha256.digest(digest, 0, digest.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+
+    private class TokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+        private final long maxTtlNanos;
+
+        TokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = Duration.between(clock.instant(), value.expiresAt()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.borjas.security;
+
+import com.borjas.datasource.ReadYourWrites;
+import com.borjas.exeption.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a small fixed pool.
+ * <p>
+ * BCrypt is deliberately slow, so letting every request thread run it at once
+ * would take all of them down under a login or signup storm. Work that cannot be
+ * queued, or cannot finish within the latency budget, is rejected with a 503.
+ */
+@Component
+public class BoundedPasswordExecutor implements MeterBinder, DisposableBean {
+    private static final String OVERLOADED = "password hashing is overloaded, please retry later";
+
+    private final ThreadPoolExecutor executor;
+    private final long latencyBudgetNanos;
+    private final int batchWindow;
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runCount = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public BoundedPasswordExecutor(
+            @Value("${auth.password-executor.threads:0}") int threads,
+            @Value("${auth.password-executor.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-executor.latency-budget:1s}") Duration latencyBudget) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.latencyBudgetNanos = latencyBudget.toNanos();
+        // a batch never queues more than it could fill on its own
+        this.batchWindow = Math.min(poolSize, queueCapacity);
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        return submit(task).join();
+    }
+
+    /**
+     * Queues the task and returns straight away, so the caller can do other work
+     * while it waits. Fails fast with a 503 when the queue is full.
+     */
+    public <T> Task<T> submit(Supplier<T> task) {
+        // a login loads the customer on the pool thread, which must read where the request would
+        Supplier<T> pinnedTask = ReadYourWrites.propagate(task);
+        long submittedAt = System.nanoTime();
+        long deadline = submittedAt + latencyBudgetNanos;
+
+        try {
+            Future<T> future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitNanos.add(startedAt - submittedAt);
+                waitCount.increment();
+                // the caller has already given up, do not burn CPU on its behalf
+                if (startedAt - deadline > 0) {
+                    throw new ServiceUnavailableException(OVERLOADED);
+                }
+                try {
+                    return pinnedTask.get();
+                } finally {
+                    runNanos.add(System.nanoTime() - startedAt);
+                    runCount.increment();
+                }
+            });
+            return new Task<>(future, deadline);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceUnavailableException(OVERLOADED);
+        }
+    }
+
+    /**
+     * Runs a batch with at most one of its tasks in flight per pool thread, so it
+     * shares the pool with logins instead of filling the queue. Each task gets the
+     * usual rejection and latency budget, and the first failure cancels the rest.
+     */
+    public <T> List<T> executeAll(List<Supplier<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        Deque<Task<T>> inFlight = new ArrayDeque<>(batchWindow);
+        try {
+            for (Supplier<T> task : tasks) {
+                if (inFlight.size() == batchWindow) {
+                    results.add(inFlight.removeFirst().join());
+                }
+                inFlight.addLast(submit(task));
+            }
+            while (!inFlight.isEmpty()) {
+                results.add(inFlight.removeFirst().join());
+            }
+        } catch (RuntimeException e) {
+            inFlight.forEach(Task::cancel);
+            throw e;
+        }
+        return results;
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("password.executor.queue.depth", this, BoundedPasswordExecutor::queueDepth)
+                .register(registry);
+        Gauge.builder("password.executor.active", this, BoundedPasswordExecutor::activeCount)
+                .register(registry);
+        FunctionTimer.builder("password.executor.wait", this,
+                        e -> e.waitCount.sum(), e -> e.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("time tasks spend queued before a thread picks them up")
+                .register(registry);
+        FunctionTimer.builder("password.executor.run", this,
+                        e -> e.runCount.sum(), e -> e.runNanos.sum(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        FunctionCounter.builder("password.executor.rejections", this, e -> e.rejections.sum())
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public final class Task<T> {
+        private final Future<T> future;
+        private final long deadline;
+
+        private Task(Future<T> future, long deadline) {
+            this.future = future;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Waits for the result until the latency budget runs out.
+         */
+        public T join() {
+            try {
+                return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(false);
+                rejections.increment();
+                throw new ServiceUnavailableException(OVERLOADED);
+            } catch (InterruptedException e) {
+                future.cancel(false);
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException(OVERLOADED);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Drops the task; if it is still queued it will never run.
+         */
+        public void cancel() {
+            future.cancel(false);
+        }
+    }
+}
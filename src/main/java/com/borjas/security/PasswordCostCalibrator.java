@@ -0,0 +1,76 @@
+package com.borjas.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Finds the highest work factor whose hash still fits a latency target on this CPU.
+ * <p>
+ * Every candidate is timed with a real hash, walking up from the cheapest setting
+ * and stopping at the first one over the target, so startup pays roughly twice the
+ * target per algorithm. The caps keep memory and startup time bounded.
+ */
+public class PasswordCostCalibrator {
+    static final int MIN_BCRYPT_STRENGTH = 4;
+    static final int MAX_BCRYPT_STRENGTH = 16;
+    static final int MIN_SCRYPT_CPU_COST = 1 << 10;
+    // scrypt memory is 128 * N * r bytes, this keeps it at 128 MB
+    static final int MAX_SCRYPT_CPU_COST = 1 << 17;
+    static final int MAX_ARGON2_ITERATIONS = 64;
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private final long targetNanos;
+    private final ToLongFunction<PasswordEncoder> hashTimer;
+
+    public PasswordCostCalibrator(Duration targetLatency) {
+        this(targetLatency, PasswordCostCalibrator::timeHash);
+    }
+
+    PasswordCostCalibrator(Duration targetLatency, ToLongFunction<PasswordEncoder> hashTimer) {
+        this.targetNanos = targetLatency.toNanos();
+        this.hashTimer = hashTimer;
+    }
+
+    public int bcryptStrength() {
+        return highestWithinTarget(MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH, strength -> strength + 1,
+                CostAwareBCryptPasswordEncoder::new);
+    }
+
+    public int scryptCpuCost() {
+        return highestWithinTarget(MIN_SCRYPT_CPU_COST, MAX_SCRYPT_CPU_COST, cpuCost -> cpuCost << 1,
+                PasswordEncoders::scrypt);
+    }
+
+    public int argon2Iterations() {
+        return highestWithinTarget(1, MAX_ARGON2_ITERATIONS, iterations -> iterations << 1,
+                PasswordEncoders::argon2);
+    }
+
+    private int highestWithinTarget(int minCost, int maxCost, IntUnaryOperator nextCost,
+                                    IntFunction<PasswordEncoder> encoderForCost) {
+        int best = minCost;
+        for (int cost = minCost; cost <= maxCost; cost = nextCost.applyAsInt(cost)) {
+            if (hashTimer.applyAsLong(encoderForCost.apply(cost)) > targetNanos) {
+                break;
+            }
+            best = cost;
+        }
+        return best;
+    }
+
+    private static long timeHash(PasswordEncoder encoder) {
+        // the faster of two runs, so a GC pause or JIT warm-up does not skew it
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,83 @@
+package com.borjas.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+public final class PasswordEncoders {
+    // spring security's current defaults for the parameters we do not calibrate
+    private static final int SCRYPT_CPU_COST = 1 << 16;
+    private static final int ARGON2_ITERATIONS = 2;
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * Encodes new hashes with {@code algorithm} and verifies hashes of any supported
+     * algorithm by their {@code {id}} prefix. Hashes without a prefix predate this
+     * and are verified as bcrypt, then rehashed on the next login.
+     * <p>
+     * With a positive {@code targetLatency} the cost of {@code algorithm} is calibrated
+     * on this machine, but never below the configured strength or the defaults: a slow
+     * host gets slower hashes, not weaker ones. PBKDF2 is never calibrated: its
+     * iteration count is not stored in the hash, so changing it would break every
+     * existing PBKDF2 hash.
+     */
+    public static PasswordEncoder delegating(PasswordHashingAlgorithm algorithm,
+                                             Duration targetLatency,
+                                             int bcryptStrength,
+                                             int pbkdf2Iterations) {
+        int scryptCpuCost = SCRYPT_CPU_COST;
+        int argon2Iterations = ARGON2_ITERATIONS;
+
+        if (!targetLatency.isZero() && !targetLatency.isNegative()) {
+            PasswordCostCalibrator calibrator = new PasswordCostCalibrator(targetLatency);
+            switch (algorithm) {
+                case BCRYPT -> bcryptStrength = atLeast("bcrypt strength", calibrator.bcryptStrength(), bcryptStrength);
+                case SCRYPT -> scryptCpuCost = atLeast("scrypt cpu cost", calibrator.scryptCpuCost(), scryptCpuCost);
+                case ARGON2 -> argon2Iterations = atLeast("argon2 iterations", calibrator.argon2Iterations(), argon2Iterations);
+                case PBKDF2 -> log.warn("PBKDF2 cost cannot be calibrated, using {} iterations", pbkdf2Iterations);
+            }
+            log.info("Calibrated {} for a {} ms hash: bcrypt strength {}, scrypt cpu cost {}, argon2 iterations {}",
+                    algorithm.getId(), targetLatency.toMillis(), bcryptStrength, scryptCpuCost, argon2Iterations);
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        CostAwareBCryptPasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(bcryptStrength);
+        encoders.put(PasswordHashingAlgorithm.BCRYPT.getId(), bcrypt);
+        encoders.put(PasswordHashingAlgorithm.SCRYPT.getId(), scrypt(scryptCpuCost));
+        encoders.put(PasswordHashingAlgorithm.ARGON2.getId(), argon2(argon2Iterations));
+        encoders.put(PasswordHashingAlgorithm.PBKDF2.getId(), new Pbkdf2PasswordEncoder(
+                "", 16, pbkdf2Iterations, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256
+        ));
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm.getId(), encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+
+    private static int atLeast(String cost, int calibrated, int floor) {
+        if (calibrated < floor) {
+            log.warn("Calibrated {} {} is below the configured {}, keeping {}; hashes will take longer than the target",
+                    cost, calibrated, floor, floor);
+            return floor;
+        }
+        return calibrated;
+    }
+
+    static SCryptPasswordEncoder scrypt(int cpuCost) {
+        return new SCryptPasswordEncoder(cpuCost, 8, 1, 32, 16);
+    }
+
+    static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, 1 << 14, iterations);
+    }
+}
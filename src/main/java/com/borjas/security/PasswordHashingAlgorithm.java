@@ -0,0 +1,30 @@
+package com.borjas.security;
+
+public enum PasswordHashingAlgorithm {
+    BCRYPT("bcrypt"),
+    SCRYPT("scrypt"),
+    ARGON2("argon2"),
+    PBKDF2("pbkdf2");
+
+    private final String id;
+
+    PasswordHashingAlgorithm(String id) {
+        this.id = id;
+    }
+
+    /**
+     * The prefix stored in front of every hash, e.g. {@code {bcrypt}$2a$10$...}.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public static PasswordHashingAlgorithm fromValue(String value) {
+        for (PasswordHashingAlgorithm algorithm : values()) {
+            if (algorithm.id.equalsIgnoreCase(value)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("unsupported password hashing algorithm [%s]".formatted(value));
+    }
+}
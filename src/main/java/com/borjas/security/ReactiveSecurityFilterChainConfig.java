@@ -0,0 +1,54 @@
+package com.borjas.security;
+
+import com.borjas.customer.ReactiveCustomerDao;
+import com.borjas.exeption.ReactiveAuthEntryPoint;
+import com.borjas.jwt.AuthenticatedPrincipalCache;
+import com.borjas.jwt.ReactiveJWTAuthenticationFilter;
+import com.borjas.jwt.TokenRevocationList;
+import com.borjas.jwt.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityFilterChainConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         VerifiedTokenCache verifiedTokenCache,
+                                                         ReactiveCustomerDao customerDao,
+                                                         AuthenticatedPrincipalCache principalCache,
+                                                         TokenRevocationList revocationList,
+                                                         ReactiveAuthEntryPoint reactiveAuthEntryPoint,
+                                                         @Value("${jwt.stateless:false}") boolean stateless) {
+        ReactiveJWTAuthenticationFilter jwtAuthenticationFilter = new ReactiveJWTAuthenticationFilter(
+                verifiedTokenCache, customerDao, principalCache, revocationList, stateless
+        );
+
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers(HttpMethod.POST, "/api/v1/customers", "/api/v1/auth/login")
+                        .permitAll()
+                        .anyExchange()
+                        .authenticated()
+                )
+                // stateless, same as the servlet chain
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .exceptionHandling(exceptionHandling ->
+                        exceptionHandling.authenticationEntryPoint(reactiveAuthEntryPoint))
+                .build();
+    }
+}
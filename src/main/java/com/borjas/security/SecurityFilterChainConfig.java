@@ -2,6 +2,7 @@ package com.borjas.security;
 
 import com.borjas.exeption.DelegatedAuthEntryPoint;
 import com.borjas.jwt.JWTAuthenticationFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,6 +16,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityFilterChainConfig {
 
     private final AuthenticationProvider authenticationProvider;
@@ -32,7 +34,7 @@ public class SecurityFilterChainConfig {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.POST, "/api/v1/customers")
+                        .requestMatchers(HttpMethod.POST, "/api/v1/customers", "/api/v1/auth/login")
                         .permitAll()
                         .anyRequest()
                         .authenticated()
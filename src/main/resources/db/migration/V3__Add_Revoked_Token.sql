@@ -0,0 +1,10 @@
+CREATE TABLE revoked_token
+(
+    id         BIGSERIAL PRIMARY KEY,
+    token_id   TEXT        NOT NULL UNIQUE,
+    expires_at TIMESTAMPTZ NOT NULL,
+    revoked_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX revoked_token_revoked_at_idx ON revoked_token (revoked_at);
+CREATE INDEX revoked_token_expires_at_idx ON revoked_token (expires_at);
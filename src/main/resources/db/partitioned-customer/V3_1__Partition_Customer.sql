@@ -0,0 +1,86 @@
+-- customer becomes 16 hash partitions on id, so vacuum and index maintenance work on
+-- sixteen small heaps instead of one large one. A unique index on a partitioned table
+-- must contain the partition key, so email uniqueness moves to customer_email, which is
+-- hash partitioned on email and kept in step by triggers: JPA and JDBC code keeps
+-- writing to customer and still gets a unique violation for a taken email.
+ALTER TABLE customer RENAME TO customer_unpartitioned;
+
+CREATE TABLE customer
+(
+    id       BIGINT NOT NULL DEFAULT nextval('customer_id_seq'),
+    name     TEXT   NOT NULL,
+    email    TEXT   NOT NULL,
+    password TEXT   NOT NULL,
+    age      INT    NOT NULL,
+    version  BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+) PARTITION BY HASH (id);
+
+CREATE TABLE customer_email
+(
+    email       TEXT   NOT NULL,
+    customer_id BIGINT NOT NULL,
+    PRIMARY KEY (email)
+) PARTITION BY HASH (email);
+
+DO
+$$
+    BEGIN
+        FOR i IN 0..15
+            LOOP
+                EXECUTE format('CREATE TABLE customer_p%s PARTITION OF customer FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+                EXECUTE format('CREATE TABLE customer_email_p%s PARTITION OF customer_email FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+            END LOOP;
+    END
+$$;
+
+-- lookups by email still query customer directly, probing one small index per partition
+CREATE INDEX customer_email_idx ON customer (email);
+
+INSERT INTO customer(id, name, email, password, age, version)
+SELECT id, name, email, password, age, version
+FROM customer_unpartitioned;
+
+INSERT INTO customer_email(email, customer_id)
+SELECT email, id
+FROM customer_unpartitioned;
+
+-- the sequence belongs to the old table and would be dropped with it
+ALTER SEQUENCE customer_id_seq OWNED BY customer.id;
+DROP TABLE customer_unpartitioned;
+
+CREATE FUNCTION customer_email_sync() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO customer_email(email, customer_id) VALUES (NEW.email, NEW.id);
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE customer_email SET email = NEW.email WHERE email = OLD.email;
+    ELSE
+        DELETE FROM customer_email WHERE email = OLD.email;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_email_insert
+    AFTER INSERT
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_email_sync();
+
+CREATE TRIGGER customer_email_update
+    AFTER UPDATE OF email
+    ON customer
+    FOR EACH ROW
+    WHEN (OLD.email IS DISTINCT FROM NEW.email)
+EXECUTE FUNCTION customer_email_sync();
+
+CREATE TRIGGER customer_email_delete
+    AFTER DELETE
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_email_sync();
+
+ANALYZE customer;
+ANALYZE customer_email;
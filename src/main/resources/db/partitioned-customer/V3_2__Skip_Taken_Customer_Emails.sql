@@ -0,0 +1,26 @@
+-- the V3_1 insert trigger raised a unique violation on customer_email for a taken email,
+-- which ON CONFLICT DO NOTHING on customer cannot suppress because the conflict is in
+-- another table, so one taken email failed a whole bulk insert. The email is now claimed
+-- before the row goes in, and a row whose email is taken is skipped the way ON CONFLICT
+-- DO NOTHING skips it on the unpartitioned table; every customer insert in the app uses
+-- that clause and reports the missing row as a taken email.
+CREATE FUNCTION customer_email_claim() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO customer_email(email, customer_id)
+    VALUES (NEW.email, NEW.id)
+    ON CONFLICT DO NOTHING;
+    IF NOT FOUND THEN
+        RETURN NULL;
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER customer_email_insert ON customer;
+
+CREATE TRIGGER customer_email_insert
+    BEFORE INSERT
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_email_claim();
@@ -0,0 +1,3 @@
+-- lets Hibernate's pooled optimizer reserve 50 ids per nextval call,
+-- must match the allocationSize of customer_id_seq on Customer
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
@@ -0,0 +1,16 @@
+-- which shard owns each bucket; moving buckets reject writes while the rebalancer copies them
+CREATE TABLE customer_shard_bucket
+(
+    bucket INT PRIMARY KEY,
+    shard  INT     NOT NULL,
+    moving BOOLEAN NOT NULL DEFAULT false
+);
+
+-- emails are unique across all shards and looked up without asking every shard
+CREATE TABLE customer_email_directory
+(
+    email       TEXT PRIMARY KEY,
+    customer_id BIGINT NOT NULL
+);
+
+CREATE INDEX customer_email_directory_customer_id_idx ON customer_email_directory (customer_id);
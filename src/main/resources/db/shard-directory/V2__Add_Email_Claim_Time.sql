@@ -0,0 +1,7 @@
+-- lets the reconciler leave claims alone while the shard write that made them may still
+-- be running; claims that were already there count as old
+ALTER TABLE customer_email_directory
+    ADD COLUMN claimed_at TIMESTAMPTZ NOT NULL DEFAULT '-infinity';
+
+ALTER TABLE customer_email_directory
+    ALTER COLUMN claimed_at SET DEFAULT now();
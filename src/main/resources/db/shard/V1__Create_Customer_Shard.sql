@@ -0,0 +1,24 @@
+-- ids are 41 bits of milliseconds since 2023-01-01, 12 bits of bucket and 10 bits of a
+-- shard local sequence: unique across shards, roughly time ordered, and the bucket that
+-- decides the shard can be read straight from the id
+CREATE SEQUENCE customer_shard_id_seq;
+
+CREATE FUNCTION next_customer_id(bucket INT) RETURNS BIGINT AS
+$$
+SELECT ((floor(extract(EPOCH FROM clock_timestamp()) * 1000)::BIGINT - 1672531200000) << 22)
+           | (bucket::BIGINT << 10)
+           | (nextval('customer_shard_id_seq') % 1024)
+$$ LANGUAGE SQL VOLATILE;
+
+CREATE TABLE customer
+(
+    id       BIGINT PRIMARY KEY,
+    name     TEXT   NOT NULL,
+    email    TEXT   NOT NULL UNIQUE,
+    password TEXT   NOT NULL,
+    age      INT    NOT NULL,
+    version  BIGINT NOT NULL DEFAULT 0
+);
+
+-- lets the rebalancer copy and delete one bucket at a time
+CREATE INDEX customer_bucket_idx ON customer (((id >> 10) & 4095));
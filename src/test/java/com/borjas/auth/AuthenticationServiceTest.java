@@ -0,0 +1,75 @@
+package com.borjas.auth;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerDTOMapper;
+import com.borjas.jwt.JWTUtil;
+import com.borjas.jwt.VerifiedToken;
+import com.borjas.security.BoundedPasswordExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticationServiceTest {
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+    private final BoundedPasswordExecutor passwordExecutor = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+    private final JWTUtil jwtUtil = new JWTUtil();
+    private AuthenticationService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AuthenticationService(authenticationManager, passwordExecutor, new CustomerDTOMapper(), jwtUtil);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordExecutor.destroy();
+    }
+
+    @Test
+    void loginIssuesTokenForAuthenticatedCustomer() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(authenticationManager.authenticate(any())).thenReturn(
+                new UsernamePasswordAuthenticationToken(customer, null, customer.getAuthorities())
+        );
+
+        // When
+        AuthenticationResponse actual = underTest.login(new AuthenticationRequest("alex@gmail.com", "password"));
+
+        // Then
+        VerifiedToken token = jwtUtil.verify(actual.token());
+        assertThat(token.subject()).isEqualTo("alex@gmail.com");
+        assertThat(token.customerId()).isEqualTo(1L);
+        assertThat(token.roles()).isEqualTo(List.of("ROLE_USER"));
+        assertThat(token.scopes()).isEqualTo(List.of("ROLE_USER"));
+        assertThat(actual.customerDTO().id()).isEqualTo(1L);
+    }
+
+    @Test
+    void loginPropagatesBadCredentials() {
+        // Given
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.login(new AuthenticationRequest("alex@gmail.com", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+}
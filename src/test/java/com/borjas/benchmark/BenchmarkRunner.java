@@ -0,0 +1,156 @@
+package com.borjas.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the benchmarks of this package with the GC profiler, so every result has the
+ * bytes allocated per operation next to its score, and writes them to
+ * {@code benchmarks/<commit>.json}. Commit the file of a known good run as the baseline
+ * and later runs given {@code -Dbenchmark.baseline=benchmarks/<commit>.json} print how
+ * far each score and allocation moved.
+ * <p>
+ * Arguments are JMH's own, e.g. {@code JwtUtil -f 1 -wi 1 -i 3} to run only some
+ * benchmarks with fewer iterations; {@code mvn -Pbenchmark test -Dbenchmark.args="..."}
+ * passes them through.
+ */
+public final class BenchmarkRunner {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path output = Path.of(System.getProperty("benchmark.results-dir", "benchmarks"))
+                .resolve(commit() + ".json");
+        Files.createDirectories(output.getParent());
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark\\.");
+        }
+        new Runner(options
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.toString())
+                .build()
+        ).run();
+
+        String baseline = System.getProperty("benchmark.baseline", "");
+        if (!baseline.isBlank()) {
+            double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+            int regressions = compare(Path.of(baseline), output, threshold);
+            if (regressions > 0 && Boolean.getBoolean("benchmark.fail-on-regression")) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Prints every benchmark present in both runs and returns how many got worse by more
+     * than {@code threshold} percent, in score or in allocation.
+     */
+    static int compare(Path baseline, Path current, double threshold) throws IOException {
+        Map<String, JsonNode> before = byName(baseline);
+        Map<String, JsonNode> after = byName(current);
+
+        int regressions = 0;
+        System.out.printf("%nCompared with %s (regressions beyond %.0f%% are marked)%n", baseline, threshold);
+        System.out.printf("%-80s %14s %14s %8s %12s %12s %8s%n",
+                "benchmark", "baseline", "current", "better", "B/op before", "B/op after", "better");
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode old = before.get(entry.getKey());
+            if (old == null) {
+                continue;
+            }
+            JsonNode now = entry.getValue();
+
+            double oldScore = old.path("primaryMetric").path("score").asDouble();
+            double newScore = now.path("primaryMetric").path("score").asDouble();
+            // throughput is better when higher, the time modes when lower
+            double scoreChange = improvement(oldScore, newScore, "thrpt".equals(now.path("mode").asText()));
+            double oldAllocation = allocation(old);
+            double newAllocation = allocation(now);
+            double allocationChange = improvement(oldAllocation, newAllocation, false);
+
+            boolean regressed = scoreChange < -threshold || allocationChange < -threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+7.1f%% %12.1f %12.1f %+7.1f%%%s%n",
+                    entry.getKey(), oldScore, newScore, scoreChange,
+                    oldAllocation, newAllocation, allocationChange, regressed ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d regressions%n", regressions);
+        return regressions;
+    }
+
+    // in percent, negative when the current run is worse
+    static double improvement(double before, double after, boolean higherIsBetter) {
+        if (before == after) {
+            return 0;
+        }
+        double change = (after - before) / Math.max(Math.abs(before), Math.abs(after)) * 100;
+        return higherIsBetter ? change : -change;
+    }
+
+    private static double allocation(JsonNode result) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = result.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            if (metric.getKey().endsWith(ALLOCATION)) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    private static Map<String, JsonNode> byName(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            String name = result.path("benchmark").asText();
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(params.isEmpty() ? name : name + params, result);
+        }
+        return results;
+    }
+
+    // the short commit id, marked dirty when the working tree has changes
+    private static String commit() {
+        try {
+            String commit = git("rev-parse", "--short", "HEAD");
+            return git("status", "--porcelain", "--untracked-files=no").isEmpty() ? commit : commit + "-dirty";
+        } catch (IOException | InterruptedException e) {
+            return "local";
+        }
+    }
+
+    private static String git(String... args) throws IOException, InterruptedException {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (process.waitFor() != 0) {
+            throw new IOException(output);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,165 @@
+package com.borjas.benchmark;
+
+import com.borjas.FspApplication;
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerDao;
+import com.borjas.customer.CustomerListDataAccessService;
+import com.borjas.customer.CustomerSnapshot;
+import com.borjas.customer.CustomerSnapshotDataAccessService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same reads against the off-heap snapshot, the in-memory list and the JPA DAO, run
+ * with the GC profiler like every benchmark here, so the allocation and collection
+ * counts per operation sit side by side. Setup prints the heap each DAO keeps for the
+ * loaded customers; the JPA DAO keeps none but allocates every entity it returns, and
+ * needs Docker for its Postgres container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class CustomerDaoFootprintBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"snapshot", "list", "jpa"})
+    private String implementation;
+
+    @Param({"1000000"})
+    private int customers;
+
+    private CustomerDao dao;
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeapAfterGc();
+        dao = switch (implementation) {
+            case "snapshot" -> snapshotDao();
+            case "list" -> listDao();
+            case "jpa" -> jpaDao();
+            default -> throw new IllegalArgumentException("unknown implementation " + implementation);
+        };
+        long retained = usedHeapAfterGc() - before;
+
+        String offHeap = dao instanceof CustomerSnapshotDataAccessService snapshot
+                ? ", %d MB off-heap".formatted(snapshot.currentSnapshot().offHeapBytes() / (1024 * 1024))
+                : "";
+        System.out.printf("%n%s holds %d customers in %d MB of heap (%d bytes each)%s%n",
+                implementation, customers, retained / (1024 * 1024), retained / customers, offHeap);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return dao.selectCustomerById(nextId());
+    }
+
+    @Benchmark
+    public Optional<Customer> selectUserByEmail() {
+        return dao.selectUserByEmail(email(nextId()));
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomers() {
+        return dao.selectCustomers(nextId() - 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 10)
+    public void forEachCustomer(Blackhole blackhole) {
+        dao.forEachCustomer(blackhole::consume);
+    }
+
+    private CustomerDao snapshotDao() {
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder();
+        for (int i = 1; i <= customers; i++) {
+            builder.add(new Customer((long) i, "customer " + i, email(i), "password", 18 + i % 60));
+        }
+        // reads only, so there is nothing to hand writes to
+        CustomerSnapshotDataAccessService snapshot = new CustomerSnapshotDataAccessService(null);
+        snapshot.replaceSnapshot(builder.build());
+        return snapshot;
+    }
+
+    private CustomerDao listDao() {
+        CustomerListDataAccessService list = new CustomerListDataAccessService();
+        for (int i = 1; i <= customers; i++) {
+            list.insertCustomer(new Customer("customer " + i, email(i), "password", 18 + i % 60));
+        }
+        return list;
+    }
+
+    private CustomerDao jpaDao() {
+        postgres = new PostgreSQLContainer<>("postgres:latest");
+        postgres.start();
+        context = new SpringApplicationBuilder(FspApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword());
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM customer");
+        // ids restart at 1 so nextId walks the loaded rows
+        jdbcTemplate.execute("ALTER SEQUENCE customer_id_seq RESTART WITH 1");
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, password, age)
+                SELECT 'customer ' || g, 'customer' || g || '@example.com', 'password', 18 + g % 60
+                FROM generate_series(1, ?) AS g
+                """, customers);
+        jdbcTemplate.execute("VACUUM (ANALYZE) customer");
+        return context.getBean("jpa", CustomerDao.class);
+    }
+
+    // walks the loaded ids, which are 1 to customers
+    private long nextId() {
+        next++;
+        return next % customers + 1;
+    }
+
+    private static String email(long i) {
+        return "customer" + i + "@example.com";
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,132 @@
+package com.borjas.benchmark;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerListDataAccessService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every operation of the in-memory DAO on a preloaded table. Writes undo themselves
+ * within the operation, so the table keeps its size over the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerListDataAccessServiceBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"10000"})
+    private int customers;
+
+    private CustomerListDataAccessService dao;
+    private List<String> someEmails;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        dao = new CustomerListDataAccessService();
+        for (int i = 1; i <= customers; i++) {
+            dao.insertCustomer(new Customer("customer " + i, email(i), "password", 18 + i % 60));
+        }
+        someEmails = new ArrayList<>();
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            someEmails.add(email(i * 7L));
+        }
+    }
+
+    @Benchmark
+    public List<Customer> selectAllCustomers() {
+        return dao.selectAllCustomers();
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomers() {
+        return dao.selectCustomers(nextId() - 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void forEachCustomer(Blackhole blackhole) {
+        dao.forEachCustomer(blackhole::consume);
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return dao.selectCustomerById(nextId());
+    }
+
+    @Benchmark
+    public boolean insertCustomerThenDelete() {
+        Customer customer = new Customer("new customer", "new" + nextId() + "@example.com", "password", 30);
+        dao.insertCustomer(customer);
+        return dao.deleteCustomerById(customer.getId());
+    }
+
+    @Benchmark
+    public void insertCustomersThenDelete() {
+        long batch = nextId();
+        List<Customer> inserted = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inserted.add(new Customer("new customer", "new" + batch + "-" + i + "@example.com", "password", 30));
+        }
+        dao.insertCustomers(inserted);
+        inserted.forEach(customer -> dao.deleteCustomerById(customer.getId()));
+    }
+
+    @Benchmark
+    public boolean existsCustomerWithEmail() {
+        return dao.existsCustomerWithEmail(email(nextId()));
+    }
+
+    @Benchmark
+    public Set<String> selectExistingEmails() {
+        return dao.selectExistingEmails(someEmails);
+    }
+
+    @Benchmark
+    public boolean existsCustomerWithId() {
+        return dao.existsCustomerWithId(nextId());
+    }
+
+    @Benchmark
+    public Optional<Customer> updateCustomer() {
+        Customer update = new Customer();
+        update.setId(nextId());
+        update.setAge((int) (next % 80) + 18);
+        return dao.updateCustomer(update);
+    }
+
+    @Benchmark
+    public Optional<Customer> selectUserByEmail() {
+        return dao.selectUserByEmail(email(nextId()));
+    }
+
+    // walks the preloaded ids, which are 1 to customers
+    private long nextId() {
+        next++;
+        return next % customers + 1;
+    }
+
+    private static String email(long i) {
+        return "customer" + i + "@example.com";
+    }
+}
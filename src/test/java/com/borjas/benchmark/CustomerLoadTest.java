@@ -0,0 +1,99 @@
+package com.borjas.benchmark;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load against a running instance, to compare the default servlet stack with
+ * the {@code virtual-threads} and {@code reactive} profiles under the same concurrency:
+ * <pre>
+ * java -cp target/test-classes:... com.borjas.benchmark.CustomerLoadTest http://localhost:8081 2000 30
+ * java -cp target/test-classes:... com.borjas.benchmark.CustomerLoadTest http://localhost:8081 200 30 /api/v1/customers/export
+ * </pre>
+ * Arguments are the base url, the number of requests in flight, the duration in seconds
+ * and the path to GET, the first page of customers by default.
+ */
+public class CustomerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI baseUri = URI.create(args.length > 0 ? args[0] : "http://localhost:8081");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        String path = args.length > 3 ? args[3] : "/api/v1/customers";
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = registerCustomer(client, baseUri);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Timer latency = Timer.builder("load.request")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .distributionStatisticExpiry(duration.plusMinutes(1))
+                .register(registry);
+        AtomicLong failures = new AtomicLong();
+
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<Void>> response =
+                    client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((result, error) -> {
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (error != null || result.statusCode() != 200) {
+                    failures.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+
+        HistogramSnapshot snapshot = latency.takeSnapshot();
+        System.out.printf("GET %s with %d in flight%n", path, concurrency);
+        System.out.printf("requests: %d, failures: %d, throughput: %.1f req/s%n",
+                snapshot.count(), failures.get(), snapshot.count() / (double) duration.toSeconds());
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            System.out.printf("p%s: %.2f ms%n",
+                    percentile.percentile() * 100, percentile.value(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static String registerCustomer(HttpClient client, URI baseUri) throws Exception {
+        String email = "load-" + UUID.randomUUID() + "@example.com";
+        String body = """
+                {"name": "Load Test", "email": "%s", "password": "password", "age": 30}
+                """.formatted(email);
+        HttpRequest register = HttpRequest.newBuilder(baseUri.resolve("/api/v1/customers"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<Void> response = client.send(register, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("registration failed with status " + response.statusCode());
+        }
+        return response.headers()
+                .firstValue("Authorization")
+                .orElseThrow(() -> new IllegalStateException("no token in the registration response"));
+    }
+}
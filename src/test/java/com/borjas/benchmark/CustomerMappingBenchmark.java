@@ -0,0 +1,79 @@
+package com.borjas.benchmark;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerDTO;
+import com.borjas.customer.CustomerDTOMapper;
+import com.borjas.customer.CustomerRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping one customer row to the entity and the entity to the DTO, done for every
+ * customer a request returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerMappingBenchmark {
+
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private Customer customer;
+    private CachedRowSet resultSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        customer = new Customer(42L, "Alex Borjas", "alex@gmail.com", "password", 19);
+        customer.setVersion(3L);
+
+        // an in-memory row with the columns the DAO selects, looked up by name like the driver's
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(6);
+        String[] names = {"id", "name", "email", "password", "age", "version"};
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+        for (int i = 0; i < names.length; i++) {
+            metaData.setColumnName(i + 1, names[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        resultSet.moveToInsertRow();
+        resultSet.updateLong(1, customer.getId());
+        resultSet.updateString(2, customer.getName());
+        resultSet.updateString(3, customer.getEmail());
+        resultSet.updateString(4, customer.getPassword());
+        resultSet.updateInt(5, customer.getAge());
+        resultSet.updateLong(6, customer.getVersion());
+        resultSet.insertRow();
+        resultSet.moveToCurrentRow();
+        resultSet.first();
+    }
+
+    @Benchmark
+    public CustomerDTO customerDTOMapperApply() {
+        return customerDTOMapper.apply(customer);
+    }
+
+    @Benchmark
+    public Customer customerRowMapperMapRow() throws SQLException {
+        return customerRowMapper.mapRow(resultSet, 1);
+    }
+}
@@ -0,0 +1,89 @@
+package com.borjas.benchmark;
+
+import com.borjas.customer.Customer;
+import com.borjas.jwt.AuthenticatedPrincipalCache;
+import com.borjas.jwt.JWTAuthenticationFilter;
+import com.borjas.jwt.JWTUtil;
+import com.borjas.jwt.TokenRevocationList;
+import com.borjas.jwt.VerifiedTokenCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filter on an authenticated request once the token and the principal are cached,
+ * which is what almost every request after login goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean stateless;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final FilterChain chain = (request, response) -> {
+    };
+    private JWTAuthenticationFilter filter;
+    private MockHttpServletRequest authenticated;
+    private MockHttpServletRequest anonymous;
+
+    @Setup
+    public void setUp() throws ServletException, IOException {
+        JWTUtil jwtUtil = new JWTUtil();
+        Customer customer = new Customer(42L, "Alex", "alex@gmail.com", "password", 19);
+        filter = new JWTAuthenticationFilter(
+                new VerifiedTokenCache(jwtUtil, true, 50_000, Duration.ofHours(1)),
+                username -> customer,
+                new AuthenticatedPrincipalCache(10_000, Duration.ofMinutes(5)),
+                new TokenRevocationList(10_000),
+                stateless
+        );
+
+        authenticated = new MockHttpServletRequest("GET", "/api/v1/customers/42");
+        authenticated.addHeader("Authorization",
+                "Bearer " + jwtUtil.issueToken("alex@gmail.com", 42L, List.of("ROLE_USER")));
+        anonymous = new MockHttpServletRequest("GET", "/api/v1/customers/42");
+
+        // fill the token and principal caches
+        authenticatedRequest();
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws ServletException, IOException {
+        try {
+            filter.doFilter(authenticated, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Object requestWithoutToken() throws ServletException, IOException {
+        filter.doFilter(anonymous, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
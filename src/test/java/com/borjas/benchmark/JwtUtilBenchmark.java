@@ -0,0 +1,51 @@
+package com.borjas.benchmark;
+
+import com.borjas.jwt.JWTUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing a token at login, and the two uncached checks made on a token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private final JWTUtil jwtUtil = new JWTUtil();
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtUtil.issueToken("alex@gmail.com", 42L, List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return jwtUtil.issueToken("alex@gmail.com", 42L, List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public String getSubject() {
+        return jwtUtil.getSubject(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtUtil.isTokenValid(token, "alex@gmail.com");
+    }
+}
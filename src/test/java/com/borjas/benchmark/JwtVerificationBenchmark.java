@@ -0,0 +1,84 @@
+package com.borjas.benchmark;
+
+import com.borjas.jwt.JWTUtil;
+import com.borjas.jwt.VerifiedToken;
+import com.borjas.jwt.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT verification cost: the old triple parse, a single parse and a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    // same key as JWTUtil, the old code path re-derived it on every parse
+    private static final String SECRET_KEY = "C0bfu4ReoUbi1JqwaSnm0Uwja2qAMhrSh0jT0TgVIDErYC3xzF";
+
+    private JWTUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil();
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, true, 50_000, Duration.ofHours(1));
+        token = jwtUtil.issueToken("alex@gmail.com", "ROLE_ADMIN");
+    }
+
+    @Benchmark
+    public boolean threeParsesWithFreshParser() {
+        // what JWTAuthenticationFilter used to do: getSubject, then isTokenValid
+        String subject = legacyClaims(token).getSubject();
+        boolean sameSubject = legacyClaims(token).getSubject().equals(subject);
+        boolean expired = legacyClaims(token).getExpiration().before(new Date());
+        return sameSubject && !expired;
+    }
+
+    @Benchmark
+    public VerifiedToken singleParseWithSharedParser() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken cachedByTokenDigest() {
+        return verifiedTokenCache.verify(token);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,31 @@
+package com.borjas.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VirtualThreadsTest {
+
+    @Test
+    void createsAnExecutorOnlyWhenTheRuntimeSupportsIt() throws Exception {
+        // Given
+        boolean supported = Runtime.version().feature() >= 21;
+
+        // When
+        // Then
+        assertThat(VirtualThreads.isSupported()).isEqualTo(supported);
+        if (supported) {
+            ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            assertThat(executor.submit(() -> 42).get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            executor.shutdown();
+        } else {
+            assertThatThrownBy(VirtualThreads::newVirtualThreadPerTaskExecutor)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("JDK 21");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.borjas.customer;
+
+import com.borjas.AbstractTestcontainers;
+import com.borjas.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestConfig.class, CustomerJPADataAccessService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class AbstractCustomerInsertBenchmark extends AbstractTestcontainers {
+
+    private static final int WARMUP_INSERTS = 500;
+    private static final int MEASURED_INSERTS = 5_000;
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private CustomerJPADataAccessService underTest;
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void singleRowInserts() {
+        for (int i = 0; i < WARMUP_INSERTS; i++) {
+            underTest.insertCustomer(newCustomer());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_INSERTS; i++) {
+            underTest.insertCustomer(newCustomer());
+        }
+        report("insertCustomer", System.nanoTime() - start);
+
+        assertThat(customerRepository.count()).isGreaterThanOrEqualTo(WARMUP_INSERTS + MEASURED_INSERTS);
+    }
+
+    @Test
+    void batchInserts() {
+        underTest.insertCustomers(newCustomers(WARMUP_INSERTS));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_INSERTS / BATCH_SIZE; i++) {
+            underTest.insertCustomers(newCustomers(BATCH_SIZE));
+        }
+        report("insertCustomers", System.nanoTime() - start);
+
+        assertThat(customerRepository.count()).isGreaterThanOrEqualTo(WARMUP_INSERTS + MEASURED_INSERTS);
+    }
+
+    private void report(String operation, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%s %s: %d inserts in %.2f s (%.0f inserts/s)%n",
+                getClass().getSimpleName(), operation, MEASURED_INSERTS, seconds, MEASURED_INSERTS / seconds);
+    }
+
+    private static List<Customer> newCustomers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(newCustomer());
+        }
+        return customers;
+    }
+
+    private static Customer newCustomer() {
+        return new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+    }
+}
@@ -0,0 +1,157 @@
+package com.borjas.customer;
+
+import com.borjas.AbstractTestcontainers;
+import com.borjas.TestConfig;
+import com.borjas.exeption.DuplicateResourceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Loads {@code -Dbenchmark.customer.rows} customers (100M by default, which needs around
+ * 30 GB of disk for the container; 1M gives a quick first look) and times lookups,
+ * inserts and a vacuum after update churn on the same data for each table layout. The
+ * benchmark only runs with {@code -Dbenchmark.customer=true}, the checks always do.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestConfig.class, CustomerJPADataAccessService.class, CustomerJDBCDataAccessService.class, CustomerRowMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class AbstractCustomerLayoutBenchmark extends AbstractTestcontainers {
+
+    private static final long ROWS = Long.getLong("benchmark.customer.rows", 100_000_000);
+    private static final long LOAD_CHUNK = 1_000_000;
+    private static final int LOOKUPS = 10_000;
+    private static final int INSERTS = 5_000;
+
+    @Autowired
+    private CustomerJDBCDataAccessService jdbcDao;
+    @Autowired
+    private CustomerJPADataAccessService jpaDao;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicateEmailsAreRejectedByJdbcAndJpa() {
+        // Given
+        Customer customer = newCustomer();
+        jdbcDao.insertCustomer(customer);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> jdbcDao.insertCustomer(new Customer("other", customer.getEmail(), "password", 30)))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThatThrownBy(() -> jpaDao.insertCustomer(new Customer("other", customer.getEmail(), "password", 30)))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThat(jpaDao.selectUserByEmail(customer.getEmail())).isPresent();
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setEmail("new-" + customer.getEmail());
+        assertThat(jdbcDao.updateCustomer(update)).isPresent();
+        jdbcDao.insertCustomer(new Customer("other", customer.getEmail(), "password", 30));
+        assertThat(jdbcDao.deleteCustomerById(customer.getId())).isTrue();
+        assertThat(jpaDao.existsCustomerWithEmail("new-" + customer.getEmail())).isFalse();
+    }
+
+    @Test
+    void bulkInsertSkipsTakenEmails() {
+        // Given
+        Customer existing = newCustomer();
+        jdbcDao.insertCustomer(existing);
+        Customer fresh = newCustomer();
+        Customer taken = new Customer("other", existing.getEmail(), "password", 30);
+        Customer twice = new Customer("twice", fresh.getEmail(), "password", 30);
+        List<Customer> customers = List.of(fresh, taken, twice);
+
+        // When
+        jdbcDao.insertCustomers(customers);
+
+        // Then
+        assertThat(fresh.getId()).isNotNull();
+        assertThat(taken.getId()).isNull();
+        assertThat(twice.getId()).isNull();
+        assertThat(jdbcDao.selectUserByEmail(existing.getEmail()))
+                .hasValueSatisfying(actual -> assertThat(actual.getId()).isEqualTo(existing.getId()));
+        assertThat(jpaDao.selectUserByEmail(fresh.getEmail()))
+                .hasValueSatisfying(actual -> assertThat(actual.getName()).isEqualTo(fresh.getName()));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.customer", matches = "true")
+    void benchmark() {
+        long start = System.nanoTime();
+        for (long from = 1; from <= ROWS; from += LOAD_CHUNK) {
+            jdbcTemplate.update("""
+                    INSERT INTO customer(name, email, password, age)
+                    SELECT 'customer ' || g, 'customer' || g || '@example.com', 'password', 18 + g % 60
+                    FROM generate_series(?, ?) AS g
+                    """, from, Math.min(from + LOAD_CHUNK - 1, ROWS));
+        }
+        jdbcTemplate.execute("VACUUM (ANALYZE) customer");
+        report("load", ROWS, System.nanoTime() - start);
+
+        long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM customer", Long.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            jdbcDao.selectCustomerById(random.nextLong(1, maxId + 1));
+        }
+        report("selectCustomerById", LOOKUPS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertThat(jdbcDao.selectUserByEmail("customer" + random.nextLong(1, ROWS + 1) + "@example.com")).isPresent();
+        }
+        report("selectUserByEmail", LOOKUPS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < INSERTS; i++) {
+            jdbcDao.insertCustomer(newCustomer());
+        }
+        report("insertCustomer", INSERTS, System.nanoTime() - start);
+
+        // a tenth of the rows get a new version, leaving that many dead tuples behind
+        jdbcTemplate.update("UPDATE customer SET age = age + 1 WHERE id % 10 = 0");
+        start = System.nanoTime();
+        jdbcTemplate.execute("VACUUM customer");
+        report("vacuum", ROWS, System.nanoTime() - start);
+
+        System.out.printf("%s size: %d MB table and indexes, %d MB largest heap%n",
+                getClass().getSimpleName(),
+                jdbcTemplate.queryForObject(
+                        "SELECT sum(pg_total_relation_size(relid)) FROM pg_partition_tree('customer')", Long.class)
+                        / (1024 * 1024),
+                jdbcTemplate.queryForObject(
+                        "SELECT max(pg_relation_size(relid)) FROM pg_partition_tree('customer')", Long.class)
+                        / (1024 * 1024));
+    }
+
+    private void report(String operation, long count, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%s %s: %d in %.2f s (%.1f µs each)%n",
+                getClass().getSimpleName(), operation, count, seconds, elapsedNanos / 1_000.0 / count);
+    }
+
+    private static Customer newCustomer() {
+        return new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+    }
+}
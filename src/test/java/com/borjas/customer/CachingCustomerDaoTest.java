@@ -0,0 +1,184 @@
+package com.borjas.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDaoTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private final AtomicLong nanos = new AtomicLong();
+    private CachingCustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CachingCustomerDao(customerDao, 100, Duration.ofMinutes(10), nanos::get);
+    }
+
+    @Test
+    void selectCustomerByIdIsServedFromCache() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        underTest.selectCustomerById(1L);
+        Optional<Customer> actual = underTest.selectCustomerById(1L);
+
+        // Then
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo("alex@gmail.com"));
+        verify(customerDao, times(1)).selectCustomerById(1L);
+        assertThat(underTest.customersByIdStats().hitCount()).isEqualTo(1);
+        assertThat(underTest.customersByIdStats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedCustomersCannotBeModifiedByCallers() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        underTest.selectCustomerById(1L).orElseThrow().setName("Changed");
+
+        // Then
+        assertThat(underTest.selectCustomerById(1L)).hasValueSatisfying(
+                c -> assertThat(c.getName()).isEqualTo("Alex")
+        );
+    }
+
+    @Test
+    void missingIdsAreCachedUntilTheyExpire() {
+        // Given
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.empty());
+
+        // When
+        underTest.selectCustomerById(1L);
+        underTest.selectCustomerById(1L);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        underTest.selectCustomerById(1L);
+
+        // Then
+        verify(customerDao, times(2)).selectCustomerById(1L);
+    }
+
+    @Test
+    void insertCustomerInvalidatesCachedMiss() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectCustomerById(1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(1L);
+
+        // When
+        underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(underTest.selectCustomerById(1L)).isPresent();
+    }
+
+    @Test
+    void selectUserByEmailAlwaysReadsTheDelegate() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectUserByEmail("alex@gmail.com"))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.empty());
+
+        // When
+        Optional<Customer> first = underTest.selectUserByEmail("alex@gmail.com");
+        Optional<Customer> afterDeleteElsewhere = underTest.selectUserByEmail("alex@gmail.com");
+
+        // Then
+        assertThat(first).isPresent();
+        assertThat(afterDeleteElsewhere).isEmpty();
+        verify(customerDao, times(2)).selectUserByEmail("alex@gmail.com");
+    }
+
+    @Test
+    void updateCustomerInvalidatesId() {
+        // Given
+        Customer before = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        Customer after = new Customer(1L, "Alex", "alexander@gmail.com", "password", 19);
+        when(customerDao.selectCustomerById(1L))
+                .thenReturn(Optional.of(before))
+                .thenReturn(Optional.of(after));
+        underTest.selectCustomerById(1L);
+
+        Customer update = new Customer(1L, null, "alexander@gmail.com", null, null);
+        when(customerDao.updateCustomer(update)).thenReturn(Optional.of(after));
+
+        // When
+        underTest.updateCustomer(update);
+
+        // Then
+        assertThat(underTest.selectCustomerById(1L)).hasValueSatisfying(
+                c -> assertThat(c.getEmail()).isEqualTo("alexander@gmail.com")
+        );
+    }
+
+    @Test
+    void deleteCustomerByIdInvalidatesId() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectCustomerById(1L))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.empty());
+        when(customerDao.deleteCustomerById(1L)).thenReturn(true);
+        underTest.selectCustomerById(1L);
+
+        // When
+        boolean deleted = underTest.deleteCustomerById(1L);
+
+        // Then
+        assertThat(deleted).isTrue();
+        assertThat(underTest.selectCustomerById(1L)).isEmpty();
+    }
+
+    @Test
+    void customerChangedEventInvalidatesId() {
+        // Given
+        Customer before = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        Customer after = new Customer(1L, "Alex", "alexander@gmail.com", "password", 19);
+        when(customerDao.selectCustomerById(1L))
+                .thenReturn(Optional.of(before))
+                .thenReturn(Optional.of(after));
+        underTest.selectCustomerById(1L);
+
+        // When
+        underTest.onCustomerChanged(new CustomerChangedEvent(1L));
+
+        // Then
+        assertThat(underTest.selectCustomerById(1L)).hasValueSatisfying(
+                c -> assertThat(c.getEmail()).isEqualTo("alexander@gmail.com")
+        );
+    }
+
+    @Test
+    void bindToRegistersCacheMetrics() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // When
+        underTest.bindTo(registry);
+
+        // Then
+        assertThat(registry.find("cache.gets").tag("cache", "customer.dao.by-id").meters()).isNotEmpty();
+    }
+}
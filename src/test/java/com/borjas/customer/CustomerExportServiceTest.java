@@ -0,0 +1,143 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.RequestValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExportServiceTest {
+
+    private CustomerExportService underTest;
+    @Mock
+    private CustomerDao customerDao;
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Customer alex = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+    private final Customer andro = new Customer(2L, "Andro", "andro@gmail.com", "password", 22);
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerExportService(customerDao, customerDTOMapper, objectMapper);
+    }
+
+    @Test
+    void canExportNdjson() throws IOException {
+        // Given
+        givenCustomers(alex, andro);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.NDJSON, false, outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], CustomerDTO.class)).isEqualTo(customerDTOMapper.apply(alex));
+        assertThat(objectMapper.readValue(lines[1], CustomerDTO.class)).isEqualTo(customerDTOMapper.apply(andro));
+    }
+
+    @Test
+    void ndjsonLinesHaveNoSeparatorOtherThanNewline() throws IOException {
+        // Given
+        givenCustomers(alex, andro);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.NDJSON, false, outputStream);
+
+        // Then
+        String expected = objectMapper.writeValueAsString(customerDTOMapper.apply(alex)) + "\n"
+                + objectMapper.writeValueAsString(customerDTOMapper.apply(andro)) + "\n";
+        assertThat(outputStream.toByteArray()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void canExportJsonArray() throws IOException {
+        // Given
+        givenCustomers(alex, andro);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.JSON, false, outputStream);
+
+        // Then
+        CustomerDTO[] actual = objectMapper.readValue(outputStream.toByteArray(), CustomerDTO[].class);
+        assertThat(actual).containsExactly(customerDTOMapper.apply(alex), customerDTOMapper.apply(andro));
+    }
+
+    @Test
+    void canExportEmptyJsonArray() throws IOException {
+        // Given
+        givenCustomers();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.JSON, false, outputStream);
+
+        // Then
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    void canExportGzipped() throws IOException {
+        // Given
+        givenCustomers(alex);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.NDJSON, true, outputStream);
+
+        // Then
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            String actual = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(objectMapper.readValue(actual.trim(), CustomerDTO.class)).isEqualTo(customerDTOMapper.apply(alex));
+        }
+    }
+
+    @Test
+    void willThrowWhenExportFormatIsUnknown() {
+        assertThatThrownBy(() -> CustomerExportFormat.fromValue("xml"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("unsupported export format [xml]");
+    }
+
+    @Test
+    void acceptsGzipOnlyWithANonZeroWeight() {
+        // When
+        // Then
+        assertThat(CustomerExportService.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(CustomerExportService.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(CustomerExportService.acceptsGzip("br, *")).isTrue();
+        assertThat(CustomerExportService.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(CustomerExportService.acceptsGzip("gzip; q=0.000, *")).isFalse();
+        assertThat(CustomerExportService.acceptsGzip("*;q=0")).isFalse();
+        assertThat(CustomerExportService.acceptsGzip("identity, deflate")).isFalse();
+        assertThat(CustomerExportService.acceptsGzip(null)).isFalse();
+    }
+
+    private void givenCustomers(Customer... customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> action = invocation.getArgument(0);
+            List.of(customers).forEach(action);
+            return null;
+        }).when(customerDao).forEachCustomer(any());
+    }
+}
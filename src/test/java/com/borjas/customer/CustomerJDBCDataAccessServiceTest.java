@@ -1,14 +1,17 @@
 package com.borjas.customer;
 
 import com.borjas.AbstractTestcontainers;
+import com.borjas.exeption.DuplicateResourceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
@@ -40,6 +43,49 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotEmpty();
     }
 
+    @Test
+    void selectCustomersReturnsPageOrderedById() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    "password", 20
+            ));
+        }
+
+        // When
+        List<Customer> firstPage = underTest.selectCustomers(0L, 2);
+        List<Customer> secondPage = underTest.selectCustomers(firstPage.get(1).getId(), 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getId()).isLessThan(firstPage.get(1).getId());
+        assertThat(secondPage).isNotEmpty();
+        assertThat(secondPage.get(0).getId()).isGreaterThan(firstPage.get(1).getId());
+    }
+
+    @Test
+    void forEachCustomerVisitsEveryCustomer() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20
+        );
+        underTest.insertCustomer(customer);
+        List<Customer> visited = new ArrayList<>();
+
+        // When
+        underTest.forEachCustomer(visited::add);
+
+        // Then
+        assertThat(visited)
+                .hasSize(underTest.selectAllCustomers().size())
+                .anySatisfy(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -114,6 +160,53 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         });
     }
 
+    @Test
+    void insertCustomers() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), "password", 20),
+                new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), "password", 30)
+        );
+
+        // When
+        underTest.insertCustomers(customers);
+
+        // Then
+        assertThat(customers).extracting(Customer::getId).doesNotContainNull();
+        assertThat(underTest.selectExistingEmails(customers.stream().map(Customer::getEmail).toList()))
+                .containsExactlyInAnyOrderElementsOf(customers.stream().map(Customer::getEmail).toList());
+    }
+
+    @Test
+    void insertCustomersSkipsTakenEmails() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, "password", 20));
+        Customer taken = new Customer(FAKER.name().fullName(), email, "password", 30);
+        Customer free = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), "password", 40);
+
+        // When
+        underTest.insertCustomers(List.of(taken, free));
+
+        // Then
+        assertThat(taken.getId()).isNull();
+        assertThat(underTest.selectCustomerById(free.getId())).isPresent();
+    }
+
+    @Test
+    void selectExistingEmailsIgnoresUnknownEmails() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, "password", 20));
+        String unknownEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        // When
+        var actual = underTest.selectExistingEmails(List.of(email, unknownEmail));
+
+        // Then
+        assertThat(actual).containsExactly(email);
+    }
+
     @Test
     void existsPersonWithEmail() {
         // Given
@@ -210,6 +303,142 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotPresent();
     }
 
+    @Test
+    void insertCustomerSetsGeneratedId() {
+        // Given
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+
+        // When
+        underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(customer.getId()).isNotNull();
+        assertThat(underTest.selectCustomerById(customer.getId())).isPresent();
+    }
+
+    @Test
+    void willThrowWhenInsertingDuplicateEmail() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, "password", 20));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, "password", 30)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
+
+    @Test
+    void deleteCustomerByIdReturnsFalseWhenIdNotPresent() {
+        // Given
+        Long id = -1L;
+
+        // When
+        boolean actual = underTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    void updateCustomerReturnsEmptyWhenNothingChanges() {
+        // Given
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setName(customer.getName());
+        update.setAge(customer.getAge());
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void willThrowWhenUpdatingToTakenEmail() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, "password", 20));
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setEmail(takenEmail);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
+
+    @Test
+    void updateCustomerIncrementsVersion() {
+        // Given
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setAge(30);
+        update.setVersion(customer.getVersion());
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(30);
+            assertThat(c.getVersion()).isEqualTo(customer.getVersion() + 1);
+        });
+    }
+
+    @Test
+    void updateCustomerReturnsEmptyWhenVersionIsStale() {
+        // Given
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20
+        );
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setAge(30);
+        update.setVersion(customer.getVersion() + 1);
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).isEmpty();
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(20));
+    }
+
     @Test
     void updateCustomerName() {
         // Given
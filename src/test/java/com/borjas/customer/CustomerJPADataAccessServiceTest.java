@@ -1,12 +1,29 @@
 package com.borjas.customer;
 
+import com.borjas.exeption.DuplicateResourceException;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 class CustomerJPADataAccessServiceTest {
 
@@ -14,11 +31,13 @@ class CustomerJPADataAccessServiceTest {
     private AutoCloseable autoCloseable;
     @Mock
     private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
 
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerJPADataAccessService(customerRepository);
+        underTest = new CustomerJPADataAccessService(customerRepository, entityManager);
     }
 
     @AfterEach
@@ -36,6 +55,37 @@ class CustomerJPADataAccessServiceTest {
                 .findAll();
     }
 
+    @Test
+    void selectCustomers() {
+        // Given
+        Long afterId = 10L;
+        int limit = 20;
+
+        // When
+        underTest.selectCustomers(afterId, limit);
+
+        // Then
+        verify(customerRepository)
+                .findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Test
+    void forEachCustomerDetachesEveryStreamedCustomer() {
+        // Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        Customer second = new Customer(2L, "Andro", "andro@gmail.com", "password", 22);
+        when(customerRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+        List<Customer> visited = new ArrayList<>();
+
+        // When
+        underTest.forEachCustomer(visited::add);
+
+        // Then
+        assertThat(visited).containsExactly(first, second);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -52,14 +102,45 @@ class CustomerJPADataAccessServiceTest {
     void insertCustomer() {
         // Given
         Customer customer = new Customer(
-                1L, "alex@gmail.com", "password", "Alex", 19
+                "Alex", "alex@gmail.com", "password", 19
         );
+        doAnswer(invocation -> {
+            customer.setId(1L);
+            return null;
+        }).when(customerRepository).insertSkippingTakenEmails(List.of(customer));
 
         // When
         underTest.insertCustomer(customer);
 
         // Then
-        verify(customerRepository).save(customer);
+        verify(customerRepository).insertSkippingTakenEmails(List.of(customer));
+        assertThat(customer.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void insertCustomers() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", "password", 19)
+        );
+
+        // When
+        underTest.insertCustomers(customers);
+
+        // Then
+        verify(customerRepository).insertSkippingTakenEmails(customers);
+    }
+
+    @Test
+    void selectExistingEmails() {
+        // Given
+        List<String> emails = List.of("foo@gmail.com", "bar@gmail.com");
+
+        // When
+        underTest.selectExistingEmails(emails);
+
+        // Then
+        verify(customerRepository).findExistingEmails(emails);
     }
 
     @Test
@@ -95,20 +176,91 @@ class CustomerJPADataAccessServiceTest {
         underTest.deleteCustomerById(id);
 
         // Then
-        verify(customerRepository).deleteById(id);
+        verify(customerRepository).deleteCustomerById(id);
+    }
+
+    @Test
+    void insertCustomerFailsWhenTheEmailIsTaken() {
+        // Given
+        Customer customer = new Customer(
+                "Alex", "alex@gmail.com", "password", 19
+        );
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(customer))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
     }
 
     @Test
     void updateCustomer() {
         // Given
         Customer customer = new Customer(
-                1L, "alex@gmail.com", "password", "Alex", 19
+                1L, "Andro", "alex@gmail.com", "password", 19
         );
+        when(customerRepository.updateChangedFields(1L, null, "Andro", null, null, null)).thenReturn(1);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        Customer update = new Customer();
+        update.setId(1L);
+        update.setName("Andro");
 
         // When
-        underTest.updateCustomer(customer);
+        Optional<Customer> actual = underTest.updateCustomer(update);
 
         // Then
-        verify(customerRepository).save(customer);
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Andro"));
+    }
+
+    @Test
+    void updateCustomerPassesTheExpectedVersionToTheUpdate() {
+        // Given
+        when(customerRepository.updateChangedFields(1L, 1L, "Andro", null, null, null)).thenReturn(0);
+
+        Customer update = new Customer();
+        update.setId(1L);
+        update.setName("Andro");
+        update.setVersion(1L);
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).isEmpty();
+        verify(customerRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateCustomerWithoutFieldsDoesNotQuery() {
+        // Given
+        Customer update = new Customer();
+        update.setId(1L);
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).isEmpty();
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    void updateCustomerTranslatesUniqueViolation() {
+        // Given
+        when(customerRepository.updateChangedFields(1L, null, null, "taken@gmail.com", null, null))
+                .thenThrow(new DataIntegrityViolationException(
+                        "duplicate", new SQLException("duplicate key", "23505")
+                ));
+
+        Customer update = new Customer();
+        update.setId(1L);
+        update.setEmail("taken@gmail.com");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,322 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.DuplicateResourceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void insertCustomerAssignsIdAndVersion() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", "password", 19);
+
+        // When
+        underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(customer.getId()).isEqualTo(1L);
+        assertThat(underTest.selectCustomerById(1L)).hasValueSatisfying(c -> {
+            assertThat(c.getEmail()).isEqualTo("alex@gmail.com");
+            assertThat(c.getVersion()).isZero();
+        });
+        assertThat(underTest.existsCustomerWithEmail("alex@gmail.com")).isTrue();
+        assertThat(underTest.existsCustomerWithId(1L)).isTrue();
+    }
+
+    @Test
+    void willThrowWhenInsertingDuplicateEmail() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", "password", 19));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("Andro", "alex@gmail.com", "password", 22)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+        assertThat(underTest.size()).isEqualTo(1);
+    }
+
+    @Test
+    void insertCustomersSkipsTakenEmails() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", "password", 19));
+        Customer taken = new Customer("Andro", "alex@gmail.com", "password", 22);
+        Customer free = new Customer("Jamila", "jamila@gmail.com", "password", 30);
+
+        // When
+        underTest.insertCustomers(List.of(taken, free));
+
+        // Then
+        assertThat(taken.getId()).isNull();
+        assertThat(free.getId()).isNotNull();
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void insertCustomersRemovesTheBatchWhenAnInsertFails() {
+        // Given
+        underTest.insertCustomer(new Customer(5L, "Alex", "alex@gmail.com", "password", 19));
+        Customer first = new Customer("Andro", "andro@gmail.com", "password", 22);
+        Customer clashingId = new Customer(5L, "Jamila", "jamila@gmail.com", "password", 30);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomers(List.of(first, clashingId)))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThat(underTest.size()).isEqualTo(1);
+        assertThat(underTest.existsCustomerWithEmail("andro@gmail.com")).isFalse();
+        assertThat(underTest.existsCustomerWithEmail("jamila@gmail.com")).isFalse();
+    }
+
+    @Test
+    void selectCustomersReturnsPageAfterId() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            underTest.insertCustomer(new Customer("Alex", "alex" + i + "@gmail.com", "password", 19));
+        }
+
+        // When
+        List<Customer> actual = underTest.selectCustomers(2L, 2);
+
+        // Then
+        assertThat(actual).extracting(Customer::getId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void updateCustomerReplacesRowAndEmailIndex() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", "password", 19);
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setEmail("andro@gmail.com");
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1L));
+        assertThat(underTest.selectAllCustomers()).hasSize(1);
+        assertThat(underTest.selectUserByEmail("alex@gmail.com")).isEmpty();
+        assertThat(underTest.selectUserByEmail("andro@gmail.com")).isPresent();
+    }
+
+    @Test
+    void updateCustomerReturnsEmptyWhenVersionIsStale() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", "password", 19);
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setName("Andro");
+        update.setVersion(5L);
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).isEmpty();
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void willThrowWhenUpdatingToTakenEmail() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", "password", 19));
+        Customer customer = new Customer("Andro", "andro@gmail.com", "password", 22);
+        underTest.insertCustomer(customer);
+
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setEmail("alex@gmail.com");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+        assertThat(underTest.selectUserByEmail("andro@gmail.com")).isPresent();
+    }
+
+    @Test
+    void updatePasswordKeepsTheVersion() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", "old-hash", 19);
+        underTest.insertCustomer(customer);
+
+        // When
+        boolean stale = underTest.updatePassword(customer.getId(), "other-hash", "new-hash");
+        boolean updated = underTest.updatePassword(customer.getId(), "old-hash", "new-hash");
+
+        // Then
+        assertThat(stale).isFalse();
+        assertThat(updated).isTrue();
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getPassword()).isEqualTo("new-hash");
+            assertThat(c.getVersion()).isZero();
+        });
+    }
+
+    @Test
+    void returnedCustomersDoNotExposeStoredRows() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", "password", 19);
+        underTest.insertCustomer(customer);
+
+        // When
+        customer.setName("Andro");
+        underTest.selectCustomerById(customer.getId()).orElseThrow().setName("Jamila");
+
+        // Then
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void deleteCustomerByIdReleasesEmail() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", "password", 19);
+        underTest.insertCustomer(customer);
+
+        // When
+        boolean deleted = underTest.deleteCustomerById(customer.getId());
+
+        // Then
+        assertThat(deleted).isTrue();
+        assertThat(underTest.deleteCustomerById(customer.getId())).isFalse();
+        assertThat(underTest.existsCustomerWithEmail("alex@gmail.com")).isFalse();
+    }
+
+    @Test
+    void concurrentInsertsOfSameEmailLetExactlyOneWin() throws InterruptedException {
+        // Given
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger duplicates = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                try {
+                    underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", "password", 19));
+                } catch (DuplicateResourceException e) {
+                    duplicates.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(1);
+        assertThat(duplicates.get()).isEqualTo(threads - 1);
+    }
+
+    @Test
+    void concurrentInsertsGetUniqueIds() throws InterruptedException {
+        // Given
+        int threads = 8;
+        int insertsPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ConcurrentLinkedQueue<Long> ids = new ConcurrentLinkedQueue<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < insertsPerThread; i++) {
+                    Customer customer = new Customer("Alex", "alex-" + thread + "-" + i + "@gmail.com", "password", 19);
+                    underTest.insertCustomer(customer);
+                    ids.add(customer.getId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(ids).hasSize(threads * insertsPerThread).doesNotHaveDuplicates();
+        assertThat(underTest.size()).isEqualTo(threads * insertsPerThread);
+    }
+
+    @Test
+    void reportsMemoryPerCustomer() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", "password", 19));
+        underTest.insertCustomer(new Customer("Andro", "andro@gmail.com", "password", 22));
+
+        // When
+        long perCustomer = underTest.estimatedBytesPerCustomer();
+
+        // Then
+        assertThat(perCustomer).isPositive();
+        assertThat(underTest.estimatedMemoryBytes()).isEqualTo(perCustomer * 2);
+    }
+
+    @Test
+    void memoryTotalsFollowUpdatesAndDeletes() {
+        // Given
+        Customer alex = new Customer("Alex", "alex@gmail.com", "password", 19);
+        Customer andro = new Customer("Andro", "andro@gmail.com", "password", 22);
+        underTest.insertCustomer(alex);
+        underTest.insertCustomer(andro);
+        Customer update = new Customer();
+        update.setId(alex.getId());
+        update.setName("Alexander the Great");
+
+        // When
+        underTest.updateCustomer(update);
+        underTest.updatePassword(alex.getId(), "password", "a much longer password hash");
+        underTest.deleteCustomerById(andro.getId());
+
+        // Then
+        CustomerListDataAccessService expected = new CustomerListDataAccessService();
+        expected.insertCustomer(new Customer("Alexander the Great", "alex@gmail.com", "a much longer password hash", 19));
+        assertThat(underTest.estimatedMemoryBytes()).isEqualTo(expected.estimatedMemoryBytes());
+        assertThat(underTest.estimatedBytesPerCustomer()).isEqualTo(expected.estimatedBytesPerCustomer());
+    }
+
+    @Test
+    void exposesMemoryAsGauges() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        underTest.bindTo(registry);
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", "password", 19));
+
+        // When
+        double memory = registry.get("customer.dao.list.memory").gauge().value();
+        double perCustomer = registry.get("customer.dao.list.bytes-per-customer").gauge().value();
+
+        // Then
+        assertThat(memory).isEqualTo(underTest.estimatedMemoryBytes());
+        assertThat(perCustomer).isEqualTo(memory);
+    }
+}
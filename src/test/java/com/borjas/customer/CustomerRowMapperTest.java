@@ -21,6 +21,7 @@ class CustomerRowMapperTest {
         when(resultSet.getString("email")).thenReturn("jamila@gmail.com");
         when(resultSet.getString("password")).thenReturn("password");
         when(resultSet.getInt("age")).thenReturn(19);
+        when(resultSet.getLong("version")).thenReturn(2L);
 
         // When
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
@@ -29,6 +30,7 @@ class CustomerRowMapperTest {
         Customer expected = new Customer(
                 1L, "Jamila", "jamila@gmail.com", "password", 19
                 );
+        expected.setVersion(2L);
 
         assertThat(actual).isEqualTo(expected);
     }
@@ -1,17 +1,26 @@
 package com.borjas.customer;
 
 import com.borjas.exeption.DuplicateResourceException;
+import com.borjas.exeption.PreconditionFailedException;
 import com.borjas.exeption.RequestValidationException;
 import com.borjas.exeption.ResourceNotFoundException;
+import com.borjas.exeption.ServiceUnavailableException;
+import com.borjas.security.BoundedPasswordExecutor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -26,20 +35,84 @@ class CustomerServiceTest {
     private CustomerDao customerDao;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final BoundedPasswordExecutor passwordExecutor = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerService(customerDao, passwordEncoder, customerDTOMapper);
+        underTest = new CustomerService(customerDao, passwordEncoder, customerDTOMapper, eventPublisher, passwordExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordExecutor.destroy();
     }
 
     @Test
-    void getAllCustomers() {
+    void getCustomersUsesDefaultPageSize() {
         // When
-        underTest.getAllCustomers();
+        underTest.getCustomers(null, null);
 
         // Then
-        verify(customerDao).selectAllCustomers();
+        verify(customerDao).selectCustomers(0L, 101);
+    }
+
+    @Test
+    void getCustomersCapsPageSize() {
+        // When
+        underTest.getCustomers(5L, 50_000);
+
+        // Then
+        verify(customerDao).selectCustomers(5L, 1001);
+    }
+
+    @Test
+    void getCustomersReturnsNextCursorWhenMoreRowsExist() {
+        // Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        Customer second = new Customer(2L, "Andro", "andro@gmail.com", "password", 22);
+        Customer third = new Customer(3L, "Jamila", "jamila@gmail.com", "password", 30);
+        when(customerDao.selectCustomers(0L, 3)).thenReturn(List.of(first, second, third));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2);
+
+        // Then
+        assertThat(actual.customers()).containsExactly(
+                customerDTOMapper.apply(first),
+                customerDTOMapper.apply(second)
+        );
+        assertThat(actual.nextCursor()).isEqualTo(2L);
+        assertThat(actual.toResponse().getBody()).isEqualTo(actual.customers());
+        assertThat(actual.toResponse().getHeaders().getFirst(CustomerPage.NEXT_CURSOR_HEADER)).isEqualTo("2");
+    }
+
+    @Test
+    void getCustomersReturnsNoCursorOnLastPage() {
+        // Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectCustomers(0L, 3)).thenReturn(List.of(first));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2);
+
+        // Then
+        assertThat(actual.customers()).containsExactly(customerDTOMapper.apply(first));
+        assertThat(actual.nextCursor()).isNull();
+        assertThat(actual.toResponse().getHeaders().containsKey(CustomerPage.NEXT_CURSOR_HEADER)).isFalse();
+    }
+
+    @Test
+    void willThrowWhenPageSizeIsNotPositive() {
+        // When
+        assertThatThrownBy(() -> underTest.getCustomers(null, 0))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be greater than zero");
+
+        // Then
+        verifyNoInteractions(customerDao);
     }
 
     @Test
@@ -80,8 +153,6 @@ class CustomerServiceTest {
         // Given
         String email = "alex@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(false);
-
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "Alex", email, "password", 18
         );
@@ -97,6 +168,7 @@ class CustomerServiceTest {
         ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
 
         verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+        verify(customerDao).existsCustomerWithEmail(email);
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
@@ -112,63 +184,231 @@ class CustomerServiceTest {
         // Given
         String email = "alex@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(true);
-
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "Alex", email, "password", 18
         );
 
+        doThrow(new DuplicateResourceException("email already taken"))
+                .when(customerDao).insertCustomer(any());
+
         // When
+        // Then
         assertThatThrownBy(() -> underTest.addCustomer(request))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("email already taken");
+    }
+
+    @Test
+    void willThrowWhenEmailIsTakenBeforeWaitingForPasswordHash() {
+        // Given
+        String email = "alex@gmail.com";
 
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Alex", email, "password", 18
+        );
 
+        when(customerDao.existsCustomerWithEmail(email)).thenReturn(true);
+
+        // When
         // Then
+        assertThatThrownBy(() -> underTest.addCustomer(request))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
         verify(customerDao, never()).insertCustomer(any());
     }
 
+    @Test
+    void willCancelPasswordHashWhenEmailCheckFails() {
+        // Given
+        BoundedPasswordExecutor busy = new BoundedPasswordExecutor(1, 2, Duration.ofSeconds(5));
+        underTest = new CustomerService(customerDao, passwordEncoder, customerDTOMapper, eventPublisher, busy);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Alex", "alex@gmail.com", "password", 18
+        );
+        CountDownLatch release = new CountDownLatch(1);
+        busy.submit(() -> await(release));
+        when(customerDao.existsCustomerWithEmail(request.email()))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        // When
+        // Then
+        try {
+            assertThatThrownBy(() -> underTest.addCustomer(request))
+                    .isInstanceOf(IllegalStateException.class);
+            release.countDown();
+            // the pool runs in order, so once this is done the hash has had its turn
+            busy.execute(() -> "drained");
+            verifyNoInteractions(passwordEncoder);
+        } finally {
+            release.countDown();
+            busy.destroy();
+        }
+    }
+
+    @Test
+    void willThrowWhenPasswordHashingIsOverloaded() {
+        // Given
+        BoundedPasswordExecutor overloaded = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+        underTest = new CustomerService(customerDao, passwordEncoder, customerDTOMapper, eventPublisher, overloaded);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Alex", "alex@gmail.com", "password", 18
+        );
+        CountDownLatch release = new CountDownLatch(1);
+        overloaded.submit(() -> await(release));
+        overloaded.submit(() -> await(release));
+
+        // When
+        // Then
+        try {
+            assertThatThrownBy(() -> underTest.addCustomer(request))
+                    .isInstanceOf(ServiceUnavailableException.class);
+            verifyNoInteractions(customerDao);
+        } finally {
+            release.countDown();
+            overloaded.destroy();
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "hash";
+    }
+
+    @Test
+    void addCustomersReportsResultPerItem() {
+        // Given
+        CustomerRegistrationRequest created = new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password", 18);
+        CustomerRegistrationRequest taken = new CustomerRegistrationRequest("Andro", "andro@gmail.com", "password", 22);
+        CustomerRegistrationRequest repeated = new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password", 18);
+        CustomerRegistrationRequest invalid = new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", null, 30);
+
+        when(customerDao.selectExistingEmails(List.of("alex@gmail.com", "andro@gmail.com")))
+                .thenReturn(Set.of("andro@gmail.com"));
+        when(passwordEncoder.encode("password")).thenReturn("SomeRandomHashPassword");
+        doAnswer(invocation -> {
+            List<Customer> inserted = invocation.getArgument(0);
+            inserted.forEach(customer -> customer.setId(7L));
+            return null;
+        }).when(customerDao).insertCustomers(any());
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(List.of(created, taken, repeated, invalid));
+
+        // Then
+        assertThat(actual).extracting(CustomerRegistrationResult::status).containsExactly(
+                CustomerRegistrationStatus.CREATED,
+                CustomerRegistrationStatus.DUPLICATE,
+                CustomerRegistrationStatus.DUPLICATE,
+                CustomerRegistrationStatus.INVALID
+        );
+        assertThat(actual).extracting(CustomerRegistrationResult::id).containsExactly(7L, null, null, null);
+
+        ArgumentCaptor<List<Customer>> customersArgumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(customerDao).insertCustomers(customersArgumentCaptor.capture());
+
+        assertThat(customersArgumentCaptor.getValue()).singleElement().satisfies(c -> {
+            assertThat(c.getEmail()).isEqualTo(created.email());
+            assertThat(c.getPassword()).isEqualTo("SomeRandomHashPassword");
+        });
+    }
+
+    @Test
+    void addCustomersReportsEmailTakenDuringInsertAsDuplicate() {
+        // Given
+        CustomerRegistrationRequest first = new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password", 18);
+        CustomerRegistrationRequest racing = new CustomerRegistrationRequest("Andro", "andro@gmail.com", "password", 22);
+
+        when(customerDao.selectExistingEmails(List.of("alex@gmail.com", "andro@gmail.com"))).thenReturn(Set.of());
+        when(passwordEncoder.encode("password")).thenReturn("SomeRandomHashPassword");
+        // another request registered andro@gmail.com between the check and the insert
+        doAnswer(invocation -> {
+            List<Customer> inserted = invocation.getArgument(0);
+            inserted.get(0).setId(1L);
+            return null;
+        }).when(customerDao).insertCustomers(any());
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(List.of(first, racing));
+
+        // Then
+        assertThat(actual).containsExactly(
+                new CustomerRegistrationResult("alex@gmail.com", CustomerRegistrationStatus.CREATED, 1L, null),
+                new CustomerRegistrationResult(
+                        "andro@gmail.com", CustomerRegistrationStatus.DUPLICATE, null, "email already taken")
+        );
+    }
+
+    @Test
+    void addCustomersWillNotInsertWhenAllEmailsAreTaken() {
+        // Given
+        CustomerRegistrationRequest taken = new CustomerRegistrationRequest("Andro", "andro@gmail.com", "password", 22);
+        when(customerDao.selectExistingEmails(List.of("andro@gmail.com"))).thenReturn(Set.of("andro@gmail.com"));
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(List.of(taken));
+
+        // Then
+        assertThat(actual).singleElement()
+                .extracting(CustomerRegistrationResult::status)
+                .isEqualTo(CustomerRegistrationStatus.DUPLICATE);
+        verify(customerDao, never()).insertCustomers(any());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    void willThrowWhenBulkRegistrationIsEmpty() {
+        // When
+        assertThatThrownBy(() -> underTest.addCustomers(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("no customers to register");
+
+        // Then
+        verifyNoInteractions(customerDao);
+    }
+
     @Test
     void deleteCustomerById() {
         // Given
         var id = 1L;
-        when(customerDao.existsCustomerWithId(id)).thenReturn(true);
+        when(customerDao.deleteCustomerById(id)).thenReturn(true);
 
         // When
         underTest.deleteCustomerById(id);
 
         // Then
         verify(customerDao).deleteCustomerById(id);
+        verify(customerDao, never()).existsCustomerWithId(id);
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(id));
     }
 
     @Test
     void willThrownWhenCustomerNotExistsWhileDeletingCustomerById() {
         // Given
         var id = 1L;
-        when(customerDao.existsCustomerWithId(id)).thenReturn(false);
+        when(customerDao.deleteCustomerById(id)).thenReturn(false);
 
         // When
+        // Then
         assertThatThrownBy(() -> underTest.deleteCustomerById(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] not found".formatted(id));
-
-        // Then
-        verify(customerDao, never()).deleteCustomerById(id);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void canUpdateAllCustomerProperties() {
         // Given
         var id = 1L;
-        Customer customer = new Customer(
-                id, "alex@gmail.com", "password", "Alex", 19
-        );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "andro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Andro", newEmail, 22);
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(
+                new Customer(id, "Andro", newEmail, "password", 22)
+        ));
 
         // When
         underTest.updateCustomer(id, updateRequest);
@@ -178,22 +418,25 @@ class CustomerServiceTest {
         verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+        assertThat(capturedCustomer.getId()).isEqualTo(id);
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
+        verify(customerDao, never()).selectCustomerById(any());
+        verify(customerDao, never()).existsCustomerWithEmail(any());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(id));
     }
 
     @Test
     void canUpdateOnlyCustomerName() {
         // Given
         var id = 1L;
-        Customer customer = new Customer(
-                id, "alex@gmail.com", "password", "Alex", 19
-        );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Andro", null, null);
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(
+                new Customer(id, "Andro", "alex@gmail.com", "password", 19)
+        ));
+
         // When
         underTest.updateCustomer(id, updateRequest);
 
@@ -202,8 +445,8 @@ class CustomerServiceTest {
         verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+        assertThat(capturedCustomer.getAge()).isNull();
+        assertThat(capturedCustomer.getEmail()).isNull();
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name()); // change
     }
 
@@ -211,16 +454,12 @@ class CustomerServiceTest {
     void canUpdateOnlyCustomerEmail() {
         // Given
         var id = 1L;
-        Customer customer = new Customer(
-                id, "alex@gmail.com", "password", "Alex", 19
-        );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
-
         String newEmail = "andro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, newEmail, null);
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(
+                new Customer(id, "Alex", newEmail, "password", 19)
+        ));
 
         // When
         underTest.updateCustomer(id, updateRequest);
@@ -230,22 +469,21 @@ class CustomerServiceTest {
         verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCustomer.getAge()).isNull();
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email()); // change
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+        assertThat(capturedCustomer.getName()).isNull();
     }
 
     @Test
     void canUpdateOnlyCustomerAge() {
         // Given
         var id = 1L;
-        Customer customer = new Customer(
-                id, "alex@gmail.com", "password", "Alex", 19
-        );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, null, 23);
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(
+                new Customer(id, "Alex", "alex@gmail.com", "password", 23)
+        ));
+
         // When
         underTest.updateCustomer(id, updateRequest);
 
@@ -255,51 +493,108 @@ class CustomerServiceTest {
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age()); // change
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName()); // change
+        assertThat(capturedCustomer.getEmail()).isNull();
+        assertThat(capturedCustomer.getName()).isNull();
     }
 
     @Test
     void willThrowWhenTryToUpdateCustomerEmailWhenAlreadyTaken() {
         // Given
         var id = 1L;
-        Customer customer = new Customer(
-                id, "alex@gmail.com", "password", "Alex", 19
-        );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
-
-        String newEmail = "andro@gmail.com";
-        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, newEmail, null);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, "andro@gmail.com", null);
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(true);
+        when(customerDao.updateCustomer(any()))
+                .thenThrow(new DuplicateResourceException("email already taken"));
 
         // When
+        // Then
         assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("email already taken");
+    }
+
+    @Test
+    void willThrownWhenCustomerUpdateHasNoChanges() {
+        // Given
+        var id = 1L;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alex", "alex@gmail.com", 19);
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(
+                new Customer(id, "Alex", "alex@gmail.com", "password", 19)
+        ));
+
+        // When
         // Then
-        verify(customerDao, never()).updateCustomer(any());
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("no data changes found");
     }
 
     @Test
-    void willThrownWhenCustomerUpdateHasNoChanges() {
+    void canUpdateCustomerWithExpectedVersion() {
         // Given
         var id = 1L;
-        Customer customer = new Customer(
-                id, "alex@gmail.com", "password", "Alex", 19
-        );
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Andro", null, null);
+
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(
+                new Customer(id, "Andro", "alex@gmail.com", "password", 19)
+        ));
+
+        // When
+        underTest.updateCustomer(id, updateRequest, 3L);
+
+        // Then
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+        assertThat(customerArgumentCaptor.getValue().getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void willThrowWhenUpdatingCustomerWithStaleVersion() {
+        // Given
+        var id = 1L;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Andro", null, null);
+        Customer current = new Customer(id, "Alex", "alex@gmail.com", "password", 19);
+        current.setVersion(4L);
+
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(current));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("customer with id [%s] was modified concurrently".formatted(id));
+    }
 
-        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(customer.getName(), customer.getEmail(), customer.getAge());
+    @Test
+    void willThrowWhenCustomerUpdateIsEmpty() {
+        // Given
+        var id = 1L;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, null, null);
 
         // When
+        // Then
         assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
                 .isInstanceOf(RequestValidationException.class)
                 .hasMessage("no data changes found");
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+        // Given
+        var id = 1L;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Andro", null, null);
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        // When
         // Then
-        verify(customerDao, never()).updateCustomer(any());
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
     }
-}
\ No newline at end of file
+}
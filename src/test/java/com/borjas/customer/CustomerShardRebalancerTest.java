@@ -0,0 +1,81 @@
+package com.borjas.customer;
+
+import com.borjas.customer.CustomerShardRebalancer.Move;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerShardRebalancerTest {
+
+    @Test
+    void balancedAssignmentNeedsNoMoves() {
+        // Given
+        int[] shardOfBucket = IntStream.range(0, 12).map(bucket -> bucket % 3).toArray();
+
+        // When
+        List<Move> actual = CustomerShardRebalancer.plan(shardOfBucket, 3);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void addedShardTakesAnEvenShareFromEveryShard() {
+        // Given
+        int[] shardOfBucket = IntStream.range(0, 12).map(bucket -> bucket % 2).toArray();
+
+        // When
+        List<Move> actual = CustomerShardRebalancer.plan(shardOfBucket, 3);
+
+        // Then
+        assertThat(actual).hasSize(4);
+        assertThat(actual).allMatch(move -> move.to() == 2);
+        assertThat(actual).filteredOn(move -> move.from() == 0).hasSize(2);
+        assertThat(actual).filteredOn(move -> move.from() == 1).hasSize(2);
+        assertThat(actual).allMatch(move -> shardOfBucket[move.bucket()] == move.from());
+        assertThat(counts(apply(shardOfBucket, actual), 3)).containsExactly(4, 4, 4);
+    }
+
+    @Test
+    void unevenBucketCountLeavesAtMostOneExtraBucketPerShard() {
+        // Given
+        int[] shardOfBucket = IntStream.range(0, 10).map(bucket -> bucket % 2).toArray();
+
+        // When
+        List<Move> actual = CustomerShardRebalancer.plan(shardOfBucket, 4);
+
+        // Then
+        assertThat(actual).hasSize(4);
+        assertThat(counts(apply(shardOfBucket, actual), 4)).containsExactly(3, 3, 2, 2);
+    }
+
+    @Test
+    void bucketIsReadFromTheCustomerId() {
+        // Given
+        long millis = 123_456_789L;
+        long id = (millis << 22) | (1234L << 10) | 1023;
+
+        // When
+        int actual = CustomerShardDirectory.bucketOf(id);
+
+        // Then
+        assertThat(actual).isEqualTo(1234);
+    }
+
+    private static int[] apply(int[] shardOfBucket, List<Move> moves) {
+        int[] result = shardOfBucket.clone();
+        moves.forEach(move -> result[move.bucket()] = move.to());
+        return result;
+    }
+
+    private static int[] counts(int[] shardOfBucket, int shardCount) {
+        int[] counts = new int[shardCount];
+        for (int shard : shardOfBucket) {
+            counts[shard]++;
+        }
+        return counts;
+    }
+}
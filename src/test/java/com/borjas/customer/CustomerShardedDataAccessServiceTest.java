@@ -0,0 +1,328 @@
+package com.borjas.customer;
+
+import com.borjas.AbstractTestcontainers;
+import com.borjas.exeption.DuplicateResourceException;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The base container holds the directory and three more containers are the shards;
+ * the DAO starts out on the first two and the third is added for rebalancing.
+ */
+class CustomerShardedDataAccessServiceTest extends AbstractTestcontainers {
+    private static final int BUCKETS = 16;
+
+    @Container
+    private static final PostgreSQLContainer<?> firstShard = shardContainer();
+    @Container
+    private static final PostgreSQLContainer<?> secondShard = shardContainer();
+    @Container
+    private static final PostgreSQLContainer<?> thirdShard = shardContainer();
+
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private CustomerShardDirectory directory;
+    private CustomerShardedDataAccessService underTest;
+
+    @BeforeAll
+    static void migrateShards() {
+        Flyway.configure()
+                .dataSource(dataSource(postgreSQLContainer))
+                .locations("classpath:db/shard-directory")
+                .table("flyway_shard_directory_history")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+        for (PostgreSQLContainer<?> shard : List.of(firstShard, secondShard, thirdShard)) {
+            Flyway.configure()
+                    .dataSource(dataSource(shard))
+                    .locations("classpath:db/shard")
+                    .load()
+                    .migrate();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        getJdbcTemplate().update("DELETE FROM customer_shard_bucket");
+        getJdbcTemplate().update("DELETE FROM customer_email_directory");
+        for (PostgreSQLContainer<?> shard : List.of(firstShard, secondShard, thirdShard)) {
+            new JdbcTemplate(dataSource(shard)).update("DELETE FROM customer");
+        }
+        directory = new CustomerShardDirectory(getJdbcTemplate(), BUCKETS);
+        directory.initialize(2);
+        underTest = new CustomerShardedDataAccessService(
+                List.of(dataSource(firstShard), dataSource(secondShard)), directory, customerRowMapper);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        underTest.destroy();
+    }
+
+    @Test
+    void insertedCustomerIsFoundByIdAndEmail() {
+        // Given
+        Customer customer = customer();
+
+        // When
+        underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(customer.getId()).isPositive();
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .hasValueSatisfying(actual -> assertThat(actual.getEmail()).isEqualTo(customer.getEmail()));
+        assertThat(underTest.selectUserByEmail(customer.getEmail()))
+                .hasValueSatisfying(actual -> assertThat(actual.getId()).isEqualTo(customer.getId()));
+        assertThat(underTest.existsCustomerWithEmail(customer.getEmail())).isTrue();
+        assertThat(shardHolding(customer.getId())).isEqualTo(directory.shardOf(customer.getId()));
+    }
+
+    @Test
+    void insertsAvoidBucketsThatAreMoving() {
+        // Given
+        for (int bucket = 1; bucket < BUCKETS; bucket++) {
+            directory.setMoving(bucket, true);
+        }
+        directory.refresh();
+        List<Customer> customers = IntStream.range(0, 20).mapToObj(i -> customer()).toList();
+
+        // When
+        underTest.insertCustomer(customer());
+        underTest.insertCustomers(customers);
+
+        // Then
+        assertThat(customers).allSatisfy(customer ->
+                assertThat(CustomerShardDirectory.bucketOf(customer.getId())).isZero());
+    }
+
+    @Test
+    void emailsAreUniqueAcrossShards() {
+        // Given
+        Customer customer = customer();
+        underTest.insertCustomer(customer);
+        List<Customer> others = IntStream.range(0, 20)
+                .mapToObj(i -> new Customer("other", customer.getEmail(), "password", 30))
+                .toList();
+
+        // When
+        // Then
+        for (Customer other : others) {
+            assertThatThrownBy(() -> underTest.insertCustomer(other))
+                    .isInstanceOf(DuplicateResourceException.class);
+        }
+        assertThat(underTest.selectAllCustomers()).hasSize(1);
+    }
+
+    @Test
+    void pagesAreMergedInIdOrderAcrossShards() {
+        // Given
+        List<Customer> customers = IntStream.range(0, 50).mapToObj(i -> customer()).toList();
+        underTest.insertCustomers(customers);
+        List<Long> ids = customers.stream().map(Customer::getId).sorted().toList();
+
+        // When
+        List<Long> actual = new ArrayList<>();
+        Long after = 0L;
+        List<Customer> page;
+        do {
+            page = underTest.selectCustomers(after, 7);
+            page.forEach(customer -> actual.add(customer.getId()));
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == 7);
+
+        // Then
+        assertThat(actual).containsExactlyElementsOf(ids);
+        assertThat(new JdbcTemplate(dataSource(firstShard)).queryForObject("SELECT count(*) FROM customer", Integer.class))
+                .isPositive();
+        assertThat(new JdbcTemplate(dataSource(secondShard)).queryForObject("SELECT count(*) FROM customer", Integer.class))
+                .isPositive();
+    }
+
+    @Test
+    void updatingTheEmailMovesItInTheDirectory() {
+        // Given
+        Customer customer = customer();
+        underTest.insertCustomer(customer);
+        String oldEmail = customer.getEmail();
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setEmail("new-" + oldEmail);
+
+        // When
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        // Then
+        assertThat(actual).hasValueSatisfying(updated -> assertThat(updated.getEmail()).isEqualTo("new-" + oldEmail));
+        assertThat(underTest.existsCustomerWithEmail(oldEmail)).isFalse();
+        assertThat(underTest.selectUserByEmail("new-" + oldEmail)).isPresent();
+    }
+
+    @Test
+    void deletingReleasesTheEmail() {
+        // Given
+        Customer customer = customer();
+        underTest.insertCustomer(customer);
+
+        // When
+        boolean actual = underTest.deleteCustomerById(customer.getId());
+
+        // Then
+        assertThat(actual).isTrue();
+        assertThat(underTest.existsCustomerWithEmail(customer.getEmail())).isFalse();
+        underTest.insertCustomer(new Customer("again", customer.getEmail(), "password", 30));
+    }
+
+    @Test
+    void idsWithABucketPastTheConfiguredCountAreNotFound() {
+        // Given
+        long id = 1048576L;
+        Customer update = new Customer();
+        update.setId(id);
+        update.setName("nobody");
+
+        // When
+        // Then
+        assertThat(CustomerShardDirectory.bucketOf(id)).isGreaterThanOrEqualTo(BUCKETS);
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+        assertThat(underTest.existsCustomerWithId(id)).isFalse();
+        assertThat(underTest.updateCustomer(update)).isEmpty();
+        assertThat(underTest.deleteCustomerById(id)).isFalse();
+    }
+
+    @Test
+    void reconcilingReleasesOldClaimsThatNoShardBacks() {
+        // Given
+        Customer customer = customer();
+        underTest.insertCustomer(customer);
+        directory.claimEmail("orphan@example.com", customer.getId() + 1);
+        directory.claimEmail("fresh@example.com", customer.getId() + 2);
+        getJdbcTemplate().update("""
+                UPDATE customer_email_directory
+                SET claimed_at = now() - interval '1 hour'
+                WHERE email <> 'fresh@example.com'
+                """);
+        CustomerEmailClaimReconciler reconciler =
+                new CustomerEmailClaimReconciler(directory, underTest, Duration.ofMinutes(5));
+
+        // When
+        int released = reconciler.reconcile();
+
+        // Then
+        assertThat(released).isEqualTo(1);
+        assertThat(underTest.existsCustomerWithEmail("orphan@example.com")).isFalse();
+        assertThat(underTest.existsCustomerWithEmail("fresh@example.com")).isTrue();
+        assertThat(underTest.existsCustomerWithEmail(customer.getEmail())).isTrue();
+    }
+
+    @Test
+    void backfillCopiesUnshardedCustomersKeepingTheirIds() {
+        // Given
+        JdbcTemplate main = getJdbcTemplate();
+        main.update("DELETE FROM customer");
+        Customer taken = customer();
+        underTest.insertCustomer(taken);
+        main.update("""
+                INSERT INTO customer(id, name, email, password, age)
+                VALUES (1, 'first', 'first@example.com', 'password', 20),
+                       (1025, 'second', 'second@example.com', 'password', 30),
+                       (2049, 'third', ?, 'password', 40)
+                """, taken.getEmail());
+        CustomerShardBackfill backfill = new CustomerShardBackfill(main, directory, underTest, customerRowMapper);
+
+        // When
+        long copied = backfill.backfill();
+        long again = backfill.backfill();
+
+        // Then
+        assertThat(copied).isEqualTo(2);
+        assertThat(again).isEqualTo(2);
+        assertThat(underTest.selectUserByEmail("first@example.com"))
+                .hasValueSatisfying(actual -> assertThat(actual.getId()).isEqualTo(1L));
+        assertThat(underTest.selectCustomerById(1025L)).isPresent();
+        assertThat(underTest.selectCustomerById(2049L)).isEmpty();
+        assertThat(underTest.selectAllCustomers()).hasSize(3);
+        main.update("DELETE FROM customer");
+    }
+
+    @Test
+    void rebalancingOntoAnAddedShardKeepsEveryCustomerReachable() throws Exception {
+        // Given
+        List<Customer> customers = IntStream.range(0, 200).mapToObj(i -> customer()).toList();
+        underTest.insertCustomers(customers);
+        underTest.destroy();
+        underTest = new CustomerShardedDataAccessService(
+                List.of(dataSource(firstShard), dataSource(secondShard), dataSource(thirdShard)),
+                directory, customerRowMapper);
+        CustomerShardRebalancer rebalancer =
+                new CustomerShardRebalancer(directory, underTest, customerRowMapper, Duration.ZERO);
+
+        // When
+        int moved = rebalancer.rebalance();
+
+        // Then
+        assertThat(moved).isEqualTo(5);
+        for (Customer customer : customers) {
+            assertThat(underTest.selectUserByEmail(customer.getEmail())).isPresent();
+            assertThat(shardHolding(customer.getId())).isEqualTo(directory.shardOf(customer.getId()));
+        }
+        assertThat(underTest.selectAllCustomers())
+                .extracting(Customer::getId)
+                .containsExactlyElementsOf(customers.stream().map(Customer::getId).sorted(Comparator.naturalOrder()).toList());
+    }
+
+    private int shardHolding(long customerId) {
+        List<PostgreSQLContainer<?>> shards = List.of(firstShard, secondShard, thirdShard);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            Integer count = new JdbcTemplate(dataSource(shards.get(shard))).queryForObject(
+                    "SELECT count(*) FROM customer WHERE id = ?", Integer.class, customerId);
+            if (count != null && count > 0) {
+                return shard;
+            }
+        }
+        return -1;
+    }
+
+    private static Customer customer() {
+        return new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password",
+                20
+        );
+    }
+
+    private static PostgreSQLContainer<?> shardContainer() {
+        return new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("borjas-dao-unit-test")
+                .withUsername("borjitascode")
+                .withPassword("password");
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return DataSourceBuilder.create()
+                .url(container.getJdbcUrl())
+                .username(container.getUsername())
+                .password(container.getPassword())
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.borjas.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerSnapshotDataAccessServiceTest {
+
+    private final CustomerDao writeDelegate = mock(CustomerDao.class);
+    private CustomerSnapshotDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerSnapshotDataAccessService(writeDelegate);
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder();
+        for (long id = 1; id <= 5; id++) {
+            builder.add(new Customer(id, "Customer " + id, "customer" + id + "@gmail.com", "password", 20));
+        }
+        underTest.replaceSnapshot(builder.build());
+    }
+
+    @Test
+    void selectCustomersPagesByKeyset() {
+        // When
+        List<Customer> actual = underTest.selectCustomers(2L, 2);
+
+        // Then
+        assertThat(actual).extracting(Customer::getId).containsExactly(3L, 4L);
+        assertThat(underTest.selectCustomers(4L, 10)).extracting(Customer::getId).containsExactly(5L);
+        assertThat(underTest.selectCustomers(5L, 10)).isEmpty();
+    }
+
+    @Test
+    void canLookUpByIdAndEmail() {
+        // When / Then
+        assertThat(underTest.selectCustomerById(3L)).hasValueSatisfying(
+                c -> assertThat(c.getEmail()).isEqualTo("customer3@gmail.com")
+        );
+        assertThat(underTest.selectUserByEmail("customer4@gmail.com")).hasValueSatisfying(
+                c -> assertThat(c.getId()).isEqualTo(4L)
+        );
+        assertThat(underTest.selectCustomerById(6L)).isEmpty();
+        assertThat(underTest.existsCustomerWithId(1L)).isTrue();
+        assertThat(underTest.existsCustomerWithEmail("nobody@gmail.com")).isFalse();
+        assertThat(underTest.selectExistingEmails(List.of("customer1@gmail.com", "nobody@gmail.com")))
+                .isEqualTo(Set.of("customer1@gmail.com"));
+    }
+
+    @Test
+    void replaceSnapshotSwapsAllReads() {
+        // When
+        underTest.replaceSnapshot(CustomerSnapshot.empty());
+
+        // Then
+        assertThat(underTest.selectAllCustomers()).isEmpty();
+        assertThat(underTest.existsCustomerWithId(1L)).isFalse();
+    }
+
+    @Test
+    void writesGoToTheDelegateAndAreReadBackBeforeTheNextReload() {
+        // Given
+        Customer inserted = new Customer("Alex", "alex@gmail.com", "password", 19);
+        doAnswer(invocation -> {
+            inserted.setId(6L);
+            return null;
+        }).when(writeDelegate).insertCustomer(inserted);
+        Customer renamed = new Customer(2L, "Renamed", "renamed@gmail.com", "password", 20);
+        when(writeDelegate.updateCustomer(any())).thenReturn(Optional.of(renamed));
+        when(writeDelegate.deleteCustomerById(3L)).thenReturn(true);
+
+        // When
+        underTest.insertCustomer(inserted);
+        underTest.updateCustomer(renamed);
+        underTest.deleteCustomerById(3L);
+
+        // Then
+        assertThat(underTest.selectUserByEmail("alex@gmail.com"))
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(6L));
+        assertThat(underTest.selectUserByEmail("renamed@gmail.com"))
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(2L));
+        assertThat(underTest.existsCustomerWithEmail("customer2@gmail.com")).isFalse();
+        assertThat(underTest.existsCustomerWithId(3L)).isFalse();
+        assertThat(underTest.selectAllCustomers())
+                .extracting(Customer::getName)
+                .containsExactly("Customer 1", "Renamed", "Customer 4", "Customer 5", "Alex");
+        assertThat(underTest.selectCustomers(1L, 2)).extracting(Customer::getId).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void aReloadDropsTheWritesItAlreadyContains() {
+        // Given
+        Customer inserted = new Customer(6L, "Alex", "alex@gmail.com", "password", 19);
+        underTest.insertCustomer(inserted);
+        long mark = underTest.markChanges();
+        Customer later = new Customer(7L, "Later", "later@gmail.com", "password", 19);
+        underTest.insertCustomer(later);
+
+        // When
+        underTest.replaceSnapshot(CustomerSnapshot.builder().add(inserted).build(), mark);
+
+        // Then
+        assertThat(underTest.selectAllCustomers()).extracting(Customer::getId).containsExactly(6L, 7L);
+        underTest.replaceSnapshot(CustomerSnapshot.empty(), underTest.markChanges());
+        assertThat(underTest.selectAllCustomers()).isEmpty();
+    }
+}
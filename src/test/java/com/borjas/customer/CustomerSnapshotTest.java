@@ -0,0 +1,132 @@
+package com.borjas.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerSnapshotTest {
+
+    @Test
+    void canLookUpEveryRowByIdAndEmail() {
+        // Given
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder();
+        for (long id = 1; id <= 5_000; id++) {
+            builder.add(customer(id * 3));
+        }
+
+        // When
+        CustomerSnapshot underTest = builder.build();
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(5_000);
+        for (long id = 1; id <= 5_000; id++) {
+            int row = underTest.rowOfId(id * 3);
+            assertThat(row).isEqualTo((int) id - 1);
+            assertThat(underTest.rowOfEmail("customer" + id * 3 + "@gmail.com")).isEqualTo(row);
+        }
+        assertThat(underTest.rowOfId(4L)).isEqualTo(-1);
+        assertThat(underTest.rowOfEmail("missing@gmail.com")).isEqualTo(-1);
+    }
+
+    @Test
+    void customerAtMaterializesAllColumns() {
+        // Given
+        Customer customer = new Customer(7L, "Jürgen Ñúñez", "jürgen@gmail.com", "$2a$10$hash", 42);
+        customer.setVersion(3L);
+        CustomerSnapshot underTest = CustomerSnapshot.builder().add(customer).build();
+
+        // When
+        Customer actual = underTest.customerAt(underTest.rowOfEmail("jürgen@gmail.com"));
+
+        // Then
+        assertThat(actual.getId()).isEqualTo(7L);
+        assertThat(actual.getName()).isEqualTo("Jürgen Ñúñez");
+        assertThat(actual.getEmail()).isEqualTo("jürgen@gmail.com");
+        assertThat(actual.getPassword()).isEqualTo("$2a$10$hash");
+        assertThat(actual.getAge()).isEqualTo(42);
+        assertThat(actual.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void recordsSpillIntoNewSlabsWhenFull() {
+        // Given
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder(128);
+        for (long id = 1; id <= 100; id++) {
+            builder.add(customer(id));
+        }
+
+        // When
+        CustomerSnapshot underTest = builder.build();
+
+        // Then
+        assertThat(underTest.offHeapBytes()).isGreaterThan(128);
+        List<Customer> customers = new ArrayList<>();
+        underTest.forEach(customers::add);
+        assertThat(customers).extracting(Customer::getEmail)
+                .first().isEqualTo("customer1@gmail.com");
+        assertThat(customers).extracting(Customer::getEmail)
+                .last().isEqualTo("customer100@gmail.com");
+    }
+
+    @Test
+    void firstRowAfterFindsKeysetPosition() {
+        // Given
+        CustomerSnapshot underTest = CustomerSnapshot.builder()
+                .add(customer(10L))
+                .add(customer(20L))
+                .add(customer(30L))
+                .build();
+
+        // When / Then
+        assertThat(underTest.firstRowAfter(0L)).isZero();
+        assertThat(underTest.firstRowAfter(10L)).isEqualTo(1);
+        assertThat(underTest.firstRowAfter(15L)).isEqualTo(1);
+        assertThat(underTest.firstRowAfter(30L)).isEqualTo(3);
+    }
+
+    @Test
+    void builderRejectsOutOfOrderIds() {
+        // Given
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder().add(customer(2L));
+
+        // When / Then
+        assertThatThrownBy(() -> builder.add(customer(1L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ascending id order");
+    }
+
+    @Test
+    void usesLessHeapThanTheListDao() {
+        // Given
+        CustomerListDataAccessService list = new CustomerListDataAccessService();
+        CustomerSnapshot.Builder builder = CustomerSnapshot.builder();
+        for (long id = 1; id <= 10_000; id++) {
+            Customer customer = customer(id);
+            builder.add(customer);
+            list.insertCustomer(new Customer(customer.getName(), customer.getEmail(),
+                    customer.getPassword(), customer.getAge()));
+        }
+
+        // When
+        CustomerSnapshot underTest = builder.build();
+
+        // Then
+        assertThat(underTest.heapBytes()).isLessThan(list.estimatedMemoryBytes() / 4);
+    }
+
+    private static Customer customer(long id) {
+        Customer customer = new Customer(
+                id,
+                "Customer " + id,
+                "customer" + id + "@gmail.com",
+                "$2a$10$abcdefghijklmnopqrstuuNi2B3pCk0Fq0r8Y4s2o7iX4pW0y1Q6e",
+                20 + (int) (id % 50)
+        );
+        customer.setVersion(0L);
+        return customer;
+    }
+}
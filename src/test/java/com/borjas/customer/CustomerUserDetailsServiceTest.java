@@ -0,0 +1,56 @@
+package com.borjas.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerUserDetailsServiceTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private CustomerUserDetailsService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerUserDetailsService(customerDao);
+    }
+
+    @Test
+    void updatePasswordOnlySwapsTheHashItVerified() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "old-hash", 19);
+        customer.setVersion(3L);
+        when(customerDao.updatePassword(1L, "old-hash", "new-hash")).thenReturn(true);
+
+        // When
+        UserDetails actual = underTest.updatePassword(customer, "new-hash");
+
+        // Then
+        verify(customerDao, never()).updateCustomer(any());
+        assertThat(actual.getPassword()).isEqualTo("new-hash");
+        assertThat(((Customer) actual).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void updatePasswordKeepsCurrentUserWhenRehashLosesRace() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "old-hash", 19);
+        when(customerDao.updatePassword(1L, "old-hash", "new-hash")).thenReturn(false);
+
+        // When
+        UserDetails actual = underTest.updatePassword(customer, "new-hash");
+
+        // Then
+        assertThat(actual).isSameAs(customer);
+    }
+}
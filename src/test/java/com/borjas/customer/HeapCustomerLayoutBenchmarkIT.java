@@ -0,0 +1,7 @@
+package com.borjas.customer;
+
+/**
+ * The customer table as V1 created it: a single heap with a unique email index.
+ */
+class HeapCustomerLayoutBenchmarkIT extends AbstractCustomerLayoutBenchmark {
+}
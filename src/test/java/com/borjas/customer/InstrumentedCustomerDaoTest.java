@@ -0,0 +1,116 @@
+package com.borjas.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InstrumentedCustomerDaoTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InstrumentedCustomerDao underTest(double sampleRate) {
+        InstrumentedCustomerDao underTest = new InstrumentedCustomerDao(customerDao, "jdbc", sampleRate);
+        underTest.bindTo(meterRegistry);
+        return underTest;
+    }
+
+    @Test
+    void callsAndRowsAreCountedPerMethod() {
+        // Given
+        InstrumentedCustomerDao underTest = underTest(1.0);
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(customerDao.selectCustomers(0L, 10)).thenReturn(List.of(customer, customer));
+        when(customerDao.selectCustomerById(2L)).thenReturn(Optional.empty());
+
+        // When
+        underTest.selectCustomers(0L, 10);
+        underTest.selectCustomers(0L, 10);
+        underTest.selectCustomerById(2L);
+
+        // Then
+        assertThat(counter("customer.dao.calls", "selectCustomers")).isEqualTo(2);
+        assertThat(counter("customer.dao.rows", "selectCustomers")).isEqualTo(4);
+        assertThat(counter("customer.dao.calls", "selectCustomerById")).isEqualTo(1);
+        assertThat(counter("customer.dao.rows", "selectCustomerById")).isZero();
+        assertThat(meterRegistry.get("customer.dao.latency")
+                .tags("implementation", "jdbc", "method", "selectCustomers")
+                .timer()
+                .count()).isEqualTo(2);
+    }
+
+    @Test
+    void errorsAreCountedAndRethrown() {
+        // Given
+        InstrumentedCustomerDao underTest = underTest(1.0);
+        when(customerDao.existsCustomerWithEmail("alex@gmail.com")).thenThrow(new IllegalStateException("down"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.existsCustomerWithEmail("alex@gmail.com"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(counter("customer.dao.calls", "existsCustomerWithEmail")).isEqualTo(1);
+        assertThat(counter("customer.dao.errors", "existsCustomerWithEmail")).isEqualTo(1);
+    }
+
+    @Test
+    void unsampledCallsAreCountedButNotTimed() {
+        // Given
+        InstrumentedCustomerDao underTest = underTest(0.0);
+        when(customerDao.selectUserByEmail("alex@gmail.com")).thenReturn(Optional.empty());
+
+        // When
+        underTest.selectUserByEmail("alex@gmail.com");
+
+        // Then
+        assertThat(counter("customer.dao.calls", "selectUserByEmail")).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.dao.latency")
+                .tags("implementation", "jdbc", "method", "selectUserByEmail")
+                .timer()
+                .count()).isZero();
+    }
+
+    @Test
+    void streamedCustomersAreCounted() {
+        // Given
+        InstrumentedCustomerDao underTest = underTest(1.0);
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        doAnswer(invocation -> {
+            Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(customer);
+            action.accept(customer);
+            action.accept(customer);
+            return null;
+        }).when(customerDao).forEachCustomer(any());
+        List<Customer> actual = new ArrayList<>();
+
+        // When
+        underTest.forEachCustomer(actual::add);
+
+        // Then
+        assertThat(actual).hasSize(3);
+        assertThat(counter("customer.dao.rows", "forEachCustomer")).isEqualTo(3);
+    }
+
+    private double counter(String name, String method) {
+        return meterRegistry.get(name)
+                .tags("implementation", "jdbc", "method", method)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,11 @@
+package com.borjas.customer;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * After the partitioned-customer migration: 16 hash partitions on id, with email
+ * uniqueness kept by the partitioned customer_email table.
+ */
+@ActiveProfiles("partitioned-customer")
+class PartitionedCustomerLayoutBenchmarkIT extends AbstractCustomerLayoutBenchmark {
+}
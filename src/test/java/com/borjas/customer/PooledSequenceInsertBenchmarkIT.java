@@ -0,0 +1,10 @@
+package com.borjas.customer;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Inserts after the pooled-ids migration: one nextval round trip per 50 rows.
+ */
+@ActiveProfiles("pooled-ids")
+class PooledSequenceInsertBenchmarkIT extends AbstractCustomerInsertBenchmark {
+}
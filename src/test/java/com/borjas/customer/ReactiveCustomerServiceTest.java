@@ -0,0 +1,206 @@
+package com.borjas.customer;
+
+import com.borjas.exeption.DuplicateResourceException;
+import com.borjas.exeption.PreconditionFailedException;
+import com.borjas.exeption.RequestValidationException;
+import com.borjas.exeption.ResourceNotFoundException;
+import com.borjas.security.BoundedPasswordExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    private ReactiveCustomerService underTest;
+    @Mock
+    private ReactiveCustomerDao customerDao;
+    @Mock
+    private CustomerService customerService;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final BoundedPasswordExecutor passwordExecutor = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDao, customerService, passwordEncoder, customerDTOMapper, eventPublisher, passwordExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordExecutor.destroy();
+    }
+
+    @Test
+    void getCustomersReturnsNextCursorWhenMoreRowsExist() {
+        // Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        Customer second = new Customer(2L, "Andro", "andro@gmail.com", "password", 22);
+        Customer third = new Customer(3L, "Jamila", "jamila@gmail.com", "password", 30);
+        when(customerDao.selectCustomers(0L, 3)).thenReturn(Flux.just(first, second, third));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2).block();
+
+        // Then
+        assertThat(actual.customers()).extracting(CustomerDTO::id).containsExactly(1L, 2L);
+        assertThat(actual.nextCursor()).isEqualTo(2L);
+    }
+
+    @Test
+    void willThrowWhenPageSizeIsNotPositive() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers(null, 0).block())
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be greater than zero");
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenGetCustomerIsEmpty() {
+        // Given
+        when(customerDao.selectCustomerById(10L)).thenReturn(Mono.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomer(10L).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [10] not found");
+    }
+
+    @Test
+    void addCustomer() {
+        // Given
+        String email = "alex@gmail.com";
+        when(customerDao.existsCustomerWithEmail(email)).thenReturn(Mono.just(false));
+        when(passwordEncoder.encode("password")).thenReturn("hashed");
+        when(customerDao.insertCustomer(any())).thenAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            customer.setId(1L);
+            customer.setVersion(0L);
+            return Mono.just(customer);
+        });
+
+        // When
+        CustomerDTO actual = underTest.addCustomer(
+                new CustomerRegistrationRequest("Alex", email, "password", 19)
+        ).block();
+
+        // Then
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+        assertThat(customerArgumentCaptor.getValue().getPassword()).isEqualTo("hashed");
+        assertThat(actual.id()).isEqualTo(1L);
+        assertThat(actual.email()).isEqualTo(email);
+    }
+
+    @Test
+    void willThrowWhenEmailExistsWhileAddingACustomer() {
+        // Given
+        String email = "alex@gmail.com";
+        when(customerDao.existsCustomerWithEmail(email)).thenReturn(Mono.just(true));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.addCustomer(
+                new CustomerRegistrationRequest("Alex", email, "password", 19)
+        ).block())
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+        verify(customerDao, never()).insertCustomer(any());
+    }
+
+    @Test
+    void deleteCustomerByIdPublishesChange() {
+        // Given
+        when(customerDao.deleteCustomerById(10L)).thenReturn(Mono.just(true));
+
+        // When
+        underTest.deleteCustomerById(10L).block();
+
+        // Then
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(10L));
+    }
+
+    @Test
+    void willThrowWhenDeletingCustomerThatDoesNotExist() {
+        // Given
+        when(customerDao.deleteCustomerById(10L)).thenReturn(Mono.just(false));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(10L).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [10] not found");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void canUpdateCustomerWithExpectedVersion() {
+        // Given
+        Customer updated = new Customer(10L, "Alex", "alex@gmail.com", "password", 20);
+        when(customerDao.updateCustomer(any())).thenReturn(Mono.just(updated));
+
+        // When
+        underTest.updateCustomer(10L, new CustomerUpdateRequest(null, null, 20), 3L).block();
+
+        // Then
+        ArgumentCaptor<Customer> updateArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDao).updateCustomer(updateArgumentCaptor.capture());
+        assertThat(updateArgumentCaptor.getValue().getVersion()).isEqualTo(3L);
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(10L));
+    }
+
+    @Test
+    void willThrowWhenUpdatingCustomerWithStaleVersion() {
+        // Given
+        Customer current = new Customer(10L, "Alex", "alex@gmail.com", "password", 19);
+        current.setVersion(4L);
+        when(customerDao.updateCustomer(any())).thenReturn(Mono.empty());
+        when(customerDao.selectCustomerById(10L)).thenReturn(Mono.just(current));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(10L, new CustomerUpdateRequest(null, null, 20), 3L).block())
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("customer with id [10] was modified concurrently");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void addCustomersDelegatesToBlockingService() {
+        // Given
+        List<CustomerRegistrationRequest> requests =
+                List.of(new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password", 19));
+        List<CustomerRegistrationResult> results = List.of(
+                new CustomerRegistrationResult("alex@gmail.com", CustomerRegistrationStatus.CREATED, 1L, null)
+        );
+        when(customerService.addCustomers(requests)).thenReturn(results);
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(requests).block();
+
+        // Then
+        assertThat(actual).isEqualTo(results);
+    }
+}
@@ -0,0 +1,7 @@
+package com.borjas.customer;
+
+/**
+ * Inserts with customer_id_seq still incrementing by 1: one nextval round trip per row.
+ */
+class SequencePerRowInsertBenchmarkIT extends AbstractCustomerInsertBenchmark {
+}
@@ -0,0 +1,85 @@
+package com.borjas.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistencyTokenFilterTest {
+
+    private static final Instant NOW = Instant.parse("2023-07-01T12:00:00Z");
+
+    private final ConsistencyTokenFilter underTest =
+            new ConsistencyTokenFilter(Duration.ofSeconds(2), Clock.fixed(NOW, ZoneOffset.UTC));
+    private final AtomicBoolean pinnedInChain = new AtomicBoolean();
+
+    @Test
+    void writesArePinnedAndIssueAToken() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/customers/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, (req, res) -> pinnedInChain.set(ReadYourWrites.isPinnedToPrimary()));
+
+        // Then
+        assertThat(pinnedInChain).isTrue();
+        assertThat(response.getHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER))
+                .isEqualTo(String.valueOf(NOW.toEpochMilli()));
+        assertThat(ReadYourWrites.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void failedWritesDoNotIssueAToken() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/customers");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response,
+                (req, res) -> ((MockHttpServletResponse) response).setStatus(409));
+
+        // Then
+        assertThat(response.getHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER)).isNull();
+    }
+
+    @Test
+    void readsWithARecentTokenArePinned() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.addHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER, NOW.minusMillis(1500).toEpochMilli());
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> pinnedInChain.set(ReadYourWrites.isPinnedToPrimary()));
+
+        // Then
+        assertThat(pinnedInChain).isTrue();
+    }
+
+    @Test
+    void readsWithAnOldOrInvalidTokenAreNotPinned() throws Exception {
+        // Given
+        MockHttpServletRequest old = new MockHttpServletRequest("GET", "/api/v1/customers");
+        old.addHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER, NOW.minusSeconds(3).toEpochMilli());
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/api/v1/customers");
+        invalid.addHeader(ReadYourWrites.CONSISTENCY_TOKEN_HEADER, "yesterday");
+        AtomicBoolean pinned = new AtomicBoolean();
+
+        // When
+        underTest.doFilter(old, new MockHttpServletResponse(),
+                (req, res) -> pinned.compareAndSet(false, ReadYourWrites.isPinnedToPrimary()));
+        underTest.doFilter(invalid, new MockHttpServletResponse(),
+                (req, res) -> pinned.compareAndSet(false, ReadYourWrites.isPinnedToPrimary()));
+
+        // Then
+        assertThat(pinned).isFalse();
+    }
+}
@@ -0,0 +1,163 @@
+package com.borjas.datasource;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HoldTimeTrackingDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(HoldTimeTrackingDataSource.class);
+    private final ListAppender<ILoggingEvent> logs = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        logs.start();
+        logger.addAppender(logs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        logger.detachAppender(logs);
+    }
+
+    @Test
+    void holdTimeIsTaggedWithTheEndpointPattern() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/customers/{customerId}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        HoldTimeTrackingDataSource underTest =
+                new HoldTimeTrackingDataSource(target, () -> meterRegistry, Duration.ofSeconds(2));
+
+        // When
+        underTest.getConnection().close();
+
+        // Then
+        assertThat(meterRegistry.get("datasource.connections.held")
+                .tag("endpoint", "GET /api/v1/customers/{customerId}")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.find("datasource.connections.held.long").counter()).isNull();
+        verify(connection).close();
+    }
+
+    @Test
+    void connectionsOutsideRequestsAreTaggedNone() throws Exception {
+        // Given
+        HoldTimeTrackingDataSource underTest =
+                new HoldTimeTrackingDataSource(target, () -> meterRegistry, Duration.ofSeconds(2));
+
+        // When
+        underTest.getConnection().close();
+
+        // Then
+        assertThat(meterRegistry.get("datasource.connections.held")
+                .tag("endpoint", HoldTimeTrackingDataSource.NO_REQUEST)
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void holdsOverTheThresholdAreCountedOnce() throws Exception {
+        // Given
+        HoldTimeTrackingDataSource underTest =
+                new HoldTimeTrackingDataSource(target, () -> meterRegistry, Duration.ZERO);
+        Connection tracked = underTest.getConnection();
+        Thread.sleep(1);
+
+        // When
+        tracked.close();
+        tracked.close();
+
+        // Then
+        assertThat(meterRegistry.get("datasource.connections.held.long").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("datasource.connections.held").timer().count()).isEqualTo(1);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void longHoldsAreLoggedWithTheStackThatAcquiredThem() throws Exception {
+        // Given
+        HoldTimeTrackingDataSource underTest =
+                new HoldTimeTrackingDataSource(target, () -> meterRegistry, Duration.ZERO);
+        Connection tracked = underTest.getConnection();
+        Thread.sleep(1);
+
+        // When
+        tracked.close();
+
+        // Then
+        assertThat(logs.list).singleElement().satisfies(event -> {
+            assertThat(event.getThrowableProxy()).isNotNull();
+            assertThat(event.getThrowableProxy().getStackTraceElementProxyArray())
+                    .anySatisfy(frame -> assertThat(frame.getSTEAsString())
+                            .contains("longHoldsAreLoggedWithTheStackThatAcquiredThem"));
+        });
+    }
+
+    @Test
+    void expectedLongHoldsAreTimedButNotCounted() throws Exception {
+        // Given
+        HoldTimeTrackingDataSource underTest =
+                new HoldTimeTrackingDataSource(target, () -> meterRegistry, Duration.ZERO);
+        Connection[] tracked = new Connection[1];
+        LongConnectionHolds.expect(() -> {
+            try {
+                tracked[0] = underTest.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(1);
+
+        // When
+        tracked[0].close();
+
+        // Then
+        assertThat(meterRegistry.find("datasource.connections.held.long").counter()).isNull();
+        assertThat(meterRegistry.get("datasource.connections.held").timer().count()).isEqualTo(1);
+        assertThat(logs.list).isEmpty();
+        assertThat(LongConnectionHolds.isExpected()).isFalse();
+    }
+
+    @Test
+    void trackedConnectionExposesItsTarget() throws Exception {
+        // Given
+        HoldTimeTrackingDataSource underTest =
+                new HoldTimeTrackingDataSource(target, () -> meterRegistry, Duration.ofSeconds(2));
+
+        // When
+        Connection actual = underTest.getConnection();
+
+        // Then
+        assertThat(actual).isInstanceOf(ConnectionProxy.class);
+        assertThat(((ConnectionProxy) actual).getTargetConnection()).isSameAs(connection);
+        assertThat(actual.unwrap(ConnectionProxy.class)).isSameAs(actual);
+    }
+}
@@ -0,0 +1,51 @@
+package com.borjas.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesTest {
+
+    private final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+        otherThread.shutdownNow();
+    }
+
+    @Test
+    void propagatesThePinToAnotherThreadAndClearsItAfterwards() throws Exception {
+        // Given
+        ReadYourWrites.pinToPrimary();
+        Supplier<Boolean> task = ReadYourWrites.propagate(ReadYourWrites::isPinnedToPrimary);
+
+        // When
+        boolean pinnedInTask = CompletableFuture.supplyAsync(task, otherThread).get();
+        boolean pinnedAfterTask = CompletableFuture.supplyAsync(ReadYourWrites::isPinnedToPrimary, otherThread).get();
+
+        // Then
+        assertThat(pinnedInTask).isTrue();
+        assertThat(pinnedAfterTask).isFalse();
+    }
+
+    @Test
+    void unpinnedCallersDoNotPinTheTask() throws Exception {
+        // Given
+        AtomicBoolean pinnedInTask = new AtomicBoolean(true);
+        Runnable task = ReadYourWrites.propagate(() -> pinnedInTask.set(ReadYourWrites.isPinnedToPrimary()));
+
+        // When
+        CompletableFuture.runAsync(task, otherThread).get();
+
+        // Then
+        assertThat(pinnedInTask).isFalse();
+    }
+}
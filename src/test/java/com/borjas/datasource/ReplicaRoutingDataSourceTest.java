@@ -0,0 +1,136 @@
+package com.borjas.datasource;
+
+import com.borjas.AbstractTestcontainers;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two independent containers, the second one standing in for a replica:
+ * a row written only to it shows which data source served a query.
+ */
+class ReplicaRoutingDataSourceTest extends AbstractTestcontainers {
+
+    @Container
+    private static final PostgreSQLContainer<?> replicaPostgreSQLContainer =
+            new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("borjas-dao-unit-test")
+                    .withUsername("borjitascode")
+                    .withPassword("password");
+
+    private ReplicaSet replicaSet;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(
+                replicaPostgreSQLContainer.getJdbcUrl(),
+                replicaPostgreSQLContainer.getUsername(),
+                replicaPostgreSQLContainer.getPassword()
+        ).load().migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByTheReplica() {
+        // Given
+        String email = onlyOnReplica();
+        DataSource underTest = routing(Map.of("replica-1", dataSource(replicaPostgreSQLContainer)));
+        replicaSet.checkReplicationLag();
+
+        // When
+        // Then
+        assertThat(countCustomers(underTest, email, true)).isEqualTo(1);
+        assertThat(countCustomers(underTest, email, false)).isZero();
+    }
+
+    @Test
+    void pinnedReadsAreServedByThePrimary() {
+        // Given
+        String email = onlyOnReplica();
+        DataSource underTest = routing(Map.of("replica-1", dataSource(replicaPostgreSQLContainer)));
+        replicaSet.checkReplicationLag();
+        ReadYourWrites.pinToPrimary();
+
+        // When
+        int actual = countCustomers(underTest, email, true);
+
+        // Then
+        assertThat(actual).isZero();
+    }
+
+    @Test
+    void unreachableReplicasAreSkipped() {
+        // Given
+        String email = onlyOnReplica();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", DataSourceBuilder.create()
+                .type(SimpleDriverDataSource.class)
+                .url("jdbc:postgresql://localhost:1/none?connectTimeout=1")
+                .username("none")
+                .password("none")
+                .build());
+        replicas.put("replica-2", dataSource(replicaPostgreSQLContainer));
+        DataSource underTest = routing(replicas);
+
+        // When
+        replicaSet.checkReplicationLag();
+
+        // Then
+        assertThat(replicaSet.replicas().get(0).inRotation()).isFalse();
+        assertThat(replicaSet.replicas().get(1).inRotation()).isTrue();
+        for (int i = 0; i < 4; i++) {
+            assertThat(countCustomers(underTest, email, true)).isEqualTo(1);
+        }
+    }
+
+    private DataSource routing(Map<String, DataSource> replicas) {
+        replicaSet = new ReplicaSet(dataSource(postgreSQLContainer), replicas, Duration.ofSeconds(2));
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaSet));
+    }
+
+    private static int countCustomers(DataSource dataSource, String email, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> new JdbcTemplate(dataSource).queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, email
+        ));
+    }
+
+    private static String onlyOnReplica() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        new JdbcTemplate(dataSource(replicaPostgreSQLContainer)).update(
+                "INSERT INTO customer(name, email, password, age) VALUES (?, ?, ?, ?)",
+                FAKER.name().fullName(), email, "password", 20
+        );
+        return email;
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return DataSourceBuilder.create()
+                .url(container.getJdbcUrl())
+                .username(container.getUsername())
+                .password(container.getPassword())
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.borjas.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReplicaSetTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource first = mock(DataSource.class);
+    private final DataSource second = mock(DataSource.class);
+    private final Map<DataSource, Duration> lags = new HashMap<>();
+
+    private ReplicaSet replicaSet() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", first);
+        replicas.put("replica-2", second);
+        return new ReplicaSet(primary, replicas, Duration.ofSeconds(2), dataSource -> {
+            Duration lag = lags.get(dataSource);
+            if (lag == null) {
+                throw new IllegalStateException("connection refused");
+            }
+            return lag;
+        });
+    }
+
+    @Test
+    void readsStayOnPrimaryUntilReplicasHaveBeenChecked() {
+        // Given
+        ReplicaSet underTest = replicaSet();
+
+        // When
+        String actual = underTest.readTarget(false);
+
+        // Then
+        assertThat(actual).isEqualTo(ReplicaSet.PRIMARY);
+    }
+
+    @Test
+    void readsAlternateBetweenHealthyReplicas() {
+        // Given
+        ReplicaSet underTest = replicaSet();
+        lags.put(first, Duration.ZERO);
+        lags.put(second, Duration.ofMillis(500));
+        underTest.checkReplicationLag();
+
+        // When
+        // Then
+        assertThat(underTest.readTarget(false)).isEqualTo("replica-1");
+        assertThat(underTest.readTarget(false)).isEqualTo("replica-2");
+        assertThat(underTest.readTarget(false)).isEqualTo("replica-1");
+    }
+
+    @Test
+    void laggingOrUnreachableReplicasLeaveTheRotation() {
+        // Given
+        ReplicaSet underTest = replicaSet();
+        lags.put(first, Duration.ofSeconds(5));
+        lags.put(second, Duration.ZERO);
+        underTest.checkReplicationLag();
+
+        // When
+        // Then
+        assertThat(underTest.readTarget(false)).isEqualTo("replica-2");
+        assertThat(underTest.readTarget(false)).isEqualTo("replica-2");
+
+        lags.remove(second);
+        underTest.checkReplicationLag();
+        assertThat(underTest.readTarget(false)).isEqualTo(ReplicaSet.PRIMARY);
+        assertThat(underTest.replicas()).allSatisfy(replica -> assertThat(replica.inRotation()).isFalse());
+        assertThat(underTest.replicas().get(1).lagSeconds()).isNaN();
+    }
+
+    @Test
+    void replicasRejoinOnceTheyCatchUp() {
+        // Given
+        ReplicaSet underTest = replicaSet();
+        lags.put(first, Duration.ofSeconds(5));
+        lags.put(second, Duration.ofSeconds(5));
+        underTest.checkReplicationLag();
+        lags.put(first, Duration.ofMillis(100));
+
+        // When
+        underTest.checkReplicationLag();
+
+        // Then
+        assertThat(underTest.readTarget(false)).isEqualTo("replica-1");
+        assertThat(underTest.replicas().get(0).lagSeconds()).isEqualTo(0.1);
+    }
+
+    @Test
+    void pinnedReadsGoToPrimary() {
+        // Given
+        ReplicaSet underTest = replicaSet();
+        lags.put(first, Duration.ZERO);
+        lags.put(second, Duration.ZERO);
+        underTest.checkReplicationLag();
+
+        // When
+        String actual = underTest.readTarget(true);
+
+        // Then
+        assertThat(actual).isEqualTo(ReplicaSet.PRIMARY);
+    }
+}
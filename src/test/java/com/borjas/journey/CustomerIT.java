@@ -1,6 +1,7 @@
 package com.borjas.journey;
 
 import com.borjas.customer.CustomerDTO;
+import com.borjas.customer.CustomerPage;
 import com.borjas.customer.CustomerRegistrationRequest;
 import com.borjas.customer.CustomerUpdateRequest;
 import com.github.javafaker.Faker;
@@ -9,10 +10,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -20,6 +24,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 public class CustomerIT {
@@ -54,18 +59,8 @@ public class CustomerIT {
                 .get(AUTHORIZATION)
                 .get(0);
 
-        // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        // page through all customers
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -80,7 +75,8 @@ public class CustomerIT {
                 email,
                 age,
                 List.of("ROLE_USER"),
-                email
+                email,
+                0L
         );
 
         //  .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id") to ignore the id field
@@ -140,18 +136,8 @@ public class CustomerIT {
                 .expectStatus()
                 .isOk();
 
-        // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        // page through all customers
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email2))
@@ -204,18 +190,8 @@ public class CustomerIT {
                 .get(AUTHORIZATION)
                 .get(0);
 
-        // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        // page through all customers
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -251,8 +227,106 @@ public class CustomerIT {
                 .returnResult()
                 .getResponseBody();
 
-        CustomerDTO expected = new CustomerDTO(id, newName, email, age, List.of("ROLE_USER"), email);
+        CustomerDTO expected = new CustomerDTO(id, newName, email, age, List.of("ROLE_USER"), email, 1L);
 
         assertThat(updatedCustomer).isEqualTo(expected);
     }
+
+    @Test
+    void willRejectUpdateWithStaleVersion() {
+        // create registration request
+        Faker faker = new Faker();
+        Name fakerName = faker.name();
+        String name = fakerName.fullName();
+        String email = fakerName.lastName().toLowerCase() + "-" + UUID.randomUUID() + "@gmail.com";
+        Random random = new Random();
+        int age = random.nextInt(1, 100);
+
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(name, email, "password", age);
+
+        // send a post request get jwt token
+        String jwtToken = webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .get(AUTHORIZATION)
+                .get(0);
+
+        var id = getAllCustomers(jwtToken).stream()
+                .filter(c -> c.email().equals(email))
+                .map(CustomerDTO::id)
+                .findFirst()
+                .orElseThrow();
+
+        // read the current version
+        String eTag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(CustomerDTO.class)
+                .getResponseHeaders()
+                .getETag();
+
+        // first update with the current version succeeds
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest("Alibaba", null, null)), CustomerUpdateRequest.class)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // second update with the same, now stale, version is rejected
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest("Aladdin", null, null)), CustomerUpdateRequest.class)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    private List<CustomerDTO> getAllCustomers(String jwtToken) {
+        List<CustomerDTO> allCustomers = new ArrayList<>();
+        Long after = 0L;
+
+        while (after != null) {
+            Long cursor = after;
+            EntityExchangeResult<List<CustomerDTO>> page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path(CUSTOMER_URI)
+                            .queryParam("after", cursor)
+                            .queryParam("limit", 1000)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
+                    })
+                    .returnResult();
+
+            allCustomers.addAll(page.getResponseBody());
+            String nextCursor = page.getResponseHeaders().getFirst(CustomerPage.NEXT_CURSOR_HEADER);
+            after = nextCursor == null ? null : Long.valueOf(nextCursor);
+        }
+
+        return allCustomers;
+    }
 }
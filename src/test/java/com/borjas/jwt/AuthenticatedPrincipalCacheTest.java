@@ -0,0 +1,66 @@
+package com.borjas.jwt;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.CustomerChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedPrincipalCacheTest {
+
+    private AuthenticatedPrincipalCache underTest;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader = subject -> {
+        loads.incrementAndGet();
+        return new Customer(1L, "Alex", subject, "password", 19);
+    };
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AuthenticatedPrincipalCache(100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void loadsEachSubjectOnce() {
+        // When
+        underTest.get("alex@gmail.com", loader);
+        UserDetails actual = underTest.get("alex@gmail.com", loader);
+
+        // Then
+        assertThat(actual.getUsername()).isEqualTo("alex@gmail.com");
+        assertThat(loads).hasValue(1);
+        assertThat(underTest.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void customerChangedEventEvictsThatCustomer() {
+        // Given
+        underTest.get("alex@gmail.com", loader);
+
+        // When
+        underTest.onCustomerChanged(new CustomerChangedEvent(1L));
+        underTest.get("alex@gmail.com", loader);
+
+        // Then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void customerChangedEventKeepsOtherCustomers() {
+        // Given
+        underTest.get("alex@gmail.com", loader);
+
+        // When
+        underTest.onCustomerChanged(new CustomerChangedEvent(2L));
+        underTest.get("alex@gmail.com", loader);
+
+        // Then
+        assertThat(loads).hasValue(1);
+    }
+}
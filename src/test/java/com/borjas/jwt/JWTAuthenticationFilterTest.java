@@ -0,0 +1,121 @@
+package com.borjas.jwt;
+
+import com.borjas.customer.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JWTAuthenticationFilterTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    @Mock
+    private UserDetailsService userDetailsService;
+    private final AuthenticatedPrincipalCache principalCache =
+            new AuthenticatedPrincipalCache(100, Duration.ofMinutes(1));
+    private final TokenRevocationList revocationList = new TokenRevocationList(100);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessModeAuthenticatesFromClaims() throws Exception {
+        // Given
+        JWTAuthenticationFilter underTest =
+                new JWTAuthenticationFilter(verifiedTokenCache, userDetailsService, principalCache, revocationList, true);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of("ROLE_ADMIN"), Instant.now().plusSeconds(60)
+        ));
+
+        // When
+        underTest.doFilter(bearer("token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal())
+                .isEqualTo(new JwtPrincipal(1L, "alex@gmail.com", List.of("ROLE_USER")));
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void statelessModeLoadsCustomerForTokensWithoutCustomerId() throws Exception {
+        // Given
+        JWTAuthenticationFilter underTest =
+                new JWTAuthenticationFilter(verifiedTokenCache, userDetailsService, principalCache, revocationList, true);
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", null, List.of(), List.of("ROLE_ADMIN"), Instant.now().plusSeconds(60)
+        ));
+        when(userDetailsService.loadUserByUsername("alex@gmail.com")).thenReturn(customer);
+
+        // When
+        underTest.doFilter(bearer("token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(customer);
+    }
+
+    @Test
+    void defaultModeLoadsCustomer() throws Exception {
+        // Given
+        JWTAuthenticationFilter underTest =
+                new JWTAuthenticationFilter(verifiedTokenCache, userDetailsService, principalCache, revocationList, false);
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), Instant.now().plusSeconds(60)
+        ));
+        when(userDetailsService.loadUserByUsername("alex@gmail.com")).thenReturn(customer);
+
+        // When
+        underTest.doFilter(bearer("token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(customer);
+    }
+
+    @Test
+    void revokedTokensAreNotAuthenticated() throws Exception {
+        // Given
+        JWTAuthenticationFilter underTest =
+                new JWTAuthenticationFilter(verifiedTokenCache, userDetailsService, principalCache, revocationList, true);
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), expiresAt
+        ));
+        revocationList.add("jti", expiresAt);
+
+        // When
+        underTest.doFilter(bearer("token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.borjas.jwt;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JWTUtilTest {
+
+    private final JWTUtil underTest = new JWTUtil();
+
+    @Test
+    void verifyReturnsSubjectScopesAndExpiry() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com", "ROLE_ADMIN");
+
+        // When
+        VerifiedToken actual = underTest.verify(token);
+
+        // Then
+        assertThat(actual.subject()).isEqualTo("alex@gmail.com");
+        assertThat(actual.tokenId()).isNotBlank();
+        assertThat(actual.customerId()).isNull();
+        assertThat(actual.scopes()).isEqualTo(List.of("ROLE_ADMIN"));
+        assertThat(actual.expiresAt()).isAfter(Instant.now().plus(14, DAYS));
+    }
+
+    @Test
+    void verifyReturnsCustomerIdAndRoles() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com", 42L, List.of("ROLE_USER"), "ROLE_ADMIN");
+
+        // When
+        VerifiedToken actual = underTest.verify(token);
+
+        // Then
+        assertThat(actual.customerId()).isEqualTo(42L);
+        assertThat(actual.roles()).isEqualTo(List.of("ROLE_USER"));
+        assertThat(actual.scopes()).isEqualTo(List.of("ROLE_ADMIN"));
+    }
+
+    @Test
+    void verifyRejectsTokensSignedWithAnotherKey() {
+        // Given
+        String token = Jwts.builder()
+                .setSubject("alex@gmail.com")
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS256))
+                .compact();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(token))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void verifyRejectsExpiredTokens() {
+        // Given
+        String token = Jwts.builder()
+                .setSubject("alex@gmail.com")
+                .setExpiration(Date.from(Instant.now().minus(1, HOURS)))
+                .signWith(Keys.hmacShaKeyFor("C0bfu4ReoUbi1JqwaSnm0Uwja2qAMhrSh0jT0TgVIDErYC3xzF".getBytes()))
+                .compact();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(token))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void isTokenValidComparesSubject() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com");
+
+        // When
+        // Then
+        assertThat(underTest.isTokenValid(token, "alex@gmail.com")).isTrue();
+        assertThat(underTest.isTokenValid(token, "other@gmail.com")).isFalse();
+    }
+}
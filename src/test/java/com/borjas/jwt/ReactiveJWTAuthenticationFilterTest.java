@@ -0,0 +1,127 @@
+package com.borjas.jwt;
+
+import com.borjas.customer.Customer;
+import com.borjas.customer.ReactiveCustomerDao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveJWTAuthenticationFilterTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    @Mock
+    private ReactiveCustomerDao customerDao;
+    private final AuthenticatedPrincipalCache principalCache =
+            new AuthenticatedPrincipalCache(100, Duration.ofMinutes(1));
+    private final TokenRevocationList revocationList = new TokenRevocationList(100);
+    private final AtomicReference<Authentication> authentication = new AtomicReference<>();
+    private final AtomicInteger chainCalls = new AtomicInteger();
+    private final WebFilterChain chain = exchange -> ReactiveSecurityContextHolder.getContext()
+            .map(SecurityContext::getAuthentication)
+            .doOnNext(authentication::set)
+            .then(Mono.fromRunnable(chainCalls::incrementAndGet));
+
+    @Test
+    void statelessModeAuthenticatesFromClaims() {
+        // Given
+        ReactiveJWTAuthenticationFilter underTest =
+                new ReactiveJWTAuthenticationFilter(verifiedTokenCache, customerDao, principalCache, revocationList, true);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of("ROLE_ADMIN"), Instant.now().plusSeconds(60)
+        ));
+
+        // When
+        underTest.filter(bearer("token"), chain).block();
+
+        // Then
+        assertThat(authentication.get().getPrincipal())
+                .isEqualTo(new JwtPrincipal(1L, "alex@gmail.com", List.of("ROLE_USER")));
+        assertThat(chainCalls).hasValue(1);
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void defaultModeLoadsCustomerOnceThroughTheCache() {
+        // Given
+        ReactiveJWTAuthenticationFilter underTest =
+                new ReactiveJWTAuthenticationFilter(verifiedTokenCache, customerDao, principalCache, revocationList, false);
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), Instant.now().plusSeconds(60)
+        ));
+        when(customerDao.selectUserByEmail("alex@gmail.com")).thenReturn(Mono.just(customer));
+
+        // When
+        underTest.filter(bearer("token"), chain).block();
+        underTest.filter(bearer("token"), chain).block();
+
+        // Then
+        assertThat(authentication.get().getPrincipal()).isEqualTo(customer);
+        assertThat(chainCalls).hasValue(2);
+        verify(customerDao, times(1)).selectUserByEmail("alex@gmail.com");
+    }
+
+    @Test
+    void unknownSubjectsContinueUnauthenticated() {
+        // Given
+        ReactiveJWTAuthenticationFilter underTest =
+                new ReactiveJWTAuthenticationFilter(verifiedTokenCache, customerDao, principalCache, revocationList, false);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "gone@gmail.com", 1L, List.of("ROLE_USER"), List.of(), Instant.now().plusSeconds(60)
+        ));
+        when(customerDao.selectUserByEmail("gone@gmail.com")).thenReturn(Mono.empty());
+
+        // When
+        underTest.filter(bearer("token"), chain).block();
+
+        // Then
+        assertThat(authentication.get()).isNull();
+        assertThat(chainCalls).hasValue(1);
+    }
+
+    @Test
+    void revokedTokensAreNotAuthenticated() {
+        // Given
+        ReactiveJWTAuthenticationFilter underTest =
+                new ReactiveJWTAuthenticationFilter(verifiedTokenCache, customerDao, principalCache, revocationList, true);
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        when(verifiedTokenCache.verify("token")).thenReturn(new VerifiedToken(
+                "jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), expiresAt
+        ));
+        revocationList.add("jti", expiresAt);
+
+        // When
+        underTest.filter(bearer("token"), chain).block();
+
+        // Then
+        assertThat(authentication.get()).isNull();
+        assertThat(chainCalls).hasValue(1);
+    }
+
+    private static MockServerWebExchange bearer(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/customers")
+                .header("Authorization", "Bearer " + token));
+    }
+}
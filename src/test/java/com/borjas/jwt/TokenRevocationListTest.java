@@ -0,0 +1,81 @@
+package com.borjas.jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private TokenRevocationList underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new TokenRevocationList(16);
+    }
+
+    @Test
+    void revokedTokensAreReported() {
+        // When
+        underTest.add("revoked", NOW.plusSeconds(60));
+
+        // Then
+        assertThat(underTest.isRevoked("revoked")).isTrue();
+        assertThat(underTest.isRevoked("other")).isFalse();
+        assertThat(underTest.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void filterGrowsPastExpectedRevocations() {
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            underTest.add("token-" + i, NOW.plusSeconds(60));
+        }
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(1_000);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(underTest.isRevoked("token-" + i)).isTrue();
+        }
+        assertThat(underTest.isRevoked("token-1000")).isFalse();
+    }
+
+    @Test
+    void pruneDropsExpiredEntries() {
+        // Given
+        underTest.add("expired", NOW.minusSeconds(1));
+        underTest.add("live", NOW.plusSeconds(60));
+
+        // When
+        int pruned = underTest.prune(NOW);
+
+        // Then
+        assertThat(pruned).isEqualTo(1);
+        assertThat(underTest.isRevoked("expired")).isFalse();
+        assertThat(underTest.isRevoked("live")).isTrue();
+    }
+
+    @Test
+    void bloomFilterHasFewFalsePositives() {
+        // Given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("live-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
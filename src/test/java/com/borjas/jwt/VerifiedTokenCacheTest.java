@@ -0,0 +1,97 @@
+package com.borjas.jwt;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Mock
+    private JWTUtil jwtUtil;
+    private final AtomicLong nanos = new AtomicLong();
+
+    private VerifiedTokenCache cache(boolean enabled) {
+        return new VerifiedTokenCache(jwtUtil, enabled, 100, Duration.ofHours(1),
+                Clock.fixed(NOW, ZoneOffset.UTC), nanos::get);
+    }
+
+    @Test
+    void verifiesEachTokenOnce() {
+        // Given
+        VerifiedTokenCache underTest = cache(true);
+        VerifiedToken verified = new VerifiedToken("jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), NOW.plusSeconds(600));
+        when(jwtUtil.verify("token")).thenReturn(verified);
+
+        // When
+        underTest.verify("token");
+        VerifiedToken actual = underTest.verify("token");
+
+        // Then
+        assertThat(actual).isEqualTo(verified);
+        verify(jwtUtil, times(1)).verify("token");
+        assertThat(underTest.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesExpireWithTheToken() {
+        // Given
+        VerifiedTokenCache underTest = cache(true);
+        when(jwtUtil.verify("token"))
+                .thenReturn(new VerifiedToken("jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), NOW.plusSeconds(60)));
+        underTest.verify("token");
+
+        // When
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        underTest.verify("token");
+
+        // Then
+        verify(jwtUtil, times(2)).verify("token");
+    }
+
+    @Test
+    void invalidTokensAreNotCached() {
+        // Given
+        VerifiedTokenCache underTest = cache(true);
+        when(jwtUtil.verify("token")).thenThrow(new JwtException("invalid"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify("token")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> underTest.verify("token")).isInstanceOf(JwtException.class);
+        verify(jwtUtil, times(2)).verify("token");
+    }
+
+    @Test
+    void disabledCacheAlwaysVerifies() {
+        // Given
+        VerifiedTokenCache underTest = cache(false);
+        when(jwtUtil.verify("token"))
+                .thenReturn(new VerifiedToken("jti", "alex@gmail.com", 1L, List.of("ROLE_USER"), List.of(), NOW.plusSeconds(600)));
+
+        // When
+        underTest.verify("token");
+        underTest.verify("token");
+
+        // Then
+        verify(jwtUtil, times(2)).verify("token");
+    }
+}
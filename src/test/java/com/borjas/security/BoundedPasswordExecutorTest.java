@@ -0,0 +1,160 @@
+package com.borjas.security;
+
+import com.borjas.exeption.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordExecutorTest {
+
+    private BoundedPasswordExecutor underTest;
+    private final CountDownLatch release = new CountDownLatch(1);
+    // callers get their own threads, the common pool may have a single worker
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        underTest.destroy();
+    }
+
+    @Test
+    void returnsTaskResult() {
+        // Given
+        underTest = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+
+        // When
+        String actual = underTest.execute(() -> "hashed");
+
+        // Then
+        assertThat(actual).isEqualTo("hashed");
+    }
+
+    @Test
+    void recordsWaitTimeAndQueueDepth() {
+        // Given
+        underTest = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        underTest.bindTo(registry);
+
+        // When
+        underTest.execute(() -> "hashed");
+
+        // Then
+        assertThat(registry.get("password.executor.wait").functionTimer().count()).isEqualTo(1);
+        assertThat(registry.get("password.executor.run").functionTimer().count()).isEqualTo(1);
+        assertThat(registry.get("password.executor.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void rethrowsTaskExceptions() {
+        // Given
+        underTest = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.execute(() -> {
+            throw new IllegalArgumentException("bad credentials");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("bad credentials");
+    }
+
+    @Test
+    void rejectsWorkWhenQueueIsFull() {
+        // Given
+        underTest = new BoundedPasswordExecutor(1, 1, Duration.ofSeconds(5));
+        callers.execute(() -> underTest.execute(this::blockUntilReleased));
+        callers.execute(() -> underTest.execute(this::blockUntilReleased));
+        awaitQueueDepth(1);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.execute(() -> "hashed"))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    void rejectsWorkThatExceedsLatencyBudget() {
+        // Given
+        underTest = new BoundedPasswordExecutor(1, 10, Duration.ofMillis(100));
+        callers.execute(() -> underTest.execute(this::blockUntilReleased));
+        awaitActiveTask();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.execute(() -> "hashed"))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    void executeAllKeepsOneTaskPerThreadInFlight() {
+        // Given
+        underTest = new BoundedPasswordExecutor(2, 2, Duration.ofSeconds(5));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        List<Supplier<Integer>> tasks = IntStream.range(0, 20)
+                .<Supplier<Integer>>mapToObj(i -> () -> {
+                    mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    running.decrementAndGet();
+                    return i;
+                })
+                .toList();
+
+        // When
+        List<Integer> actual = underTest.executeAll(tasks);
+
+        // Then
+        assertThat(actual).containsExactlyElementsOf(IntStream.range(0, 20).boxed().toList());
+        assertThat(mostRunning.get()).isLessThanOrEqualTo(2);
+        assertThat(underTest.queueDepth()).isZero();
+    }
+
+    @Test
+    void executeAllIsRejectedWhenThePoolIsBusy() {
+        // Given
+        underTest = new BoundedPasswordExecutor(1, 1, Duration.ofMillis(100));
+        callers.execute(() -> underTest.execute(this::blockUntilReleased));
+        awaitActiveTask();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.executeAll(List.<Supplier<String>>of(() -> "hashed", () -> "hashed")))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    private String blockUntilReleased() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "hashed";
+    }
+
+    private void awaitActiveTask() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (underTest.activeCount() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void awaitQueueDepth(int depth) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (underTest.queueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.borjas.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostAwareBCryptPasswordEncoderTest {
+
+    private final CostAwareBCryptPasswordEncoder underTest = new CostAwareBCryptPasswordEncoder(5);
+
+    @Test
+    void upgradesOnlyWeakerHashes() {
+        // Given
+        String weaker = new BCryptPasswordEncoder(4).encode("password");
+        String stronger = new BCryptPasswordEncoder(6).encode("password");
+        String current = underTest.encode("password");
+
+        // When
+        // Then
+        assertThat(underTest.upgradeEncoding(weaker)).isTrue();
+        assertThat(underTest.upgradeEncoding(stronger)).isFalse();
+        assertThat(underTest.upgradeEncoding(current)).isFalse();
+        assertThat(underTest.matches("password", stronger)).isTrue();
+    }
+
+    @Test
+    void doesNotUpgradeValuesThatAreNotBcryptHashes() {
+        // Given
+        // When
+        // Then
+        assertThat(underTest.upgradeEncoding("not-a-hash")).isFalse();
+        assertThat(underTest.upgradeEncoding(null)).isFalse();
+    }
+}
@@ -0,0 +1,68 @@
+package com.borjas.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordCostCalibratorTest {
+
+    private static final Duration TARGET = Duration.ofMillis(100);
+
+    @Test
+    void bcryptStrengthStopsBeforeFirstCandidateOverTarget() {
+        // Given
+        // each extra bcrypt round doubles the time: 10, 20, 40, 80, 160 ms
+        PasswordCostCalibrator underTest = new PasswordCostCalibrator(TARGET, doublingFrom(10));
+
+        // When
+        int actual = underTest.bcryptStrength();
+
+        // Then
+        assertThat(actual).isEqualTo(PasswordCostCalibrator.MIN_BCRYPT_STRENGTH + 3);
+    }
+
+    @Test
+    void scryptCpuCostUsesPowersOfTwo() {
+        // Given
+        PasswordCostCalibrator underTest = new PasswordCostCalibrator(TARGET, doublingFrom(30));
+
+        // When
+        int actual = underTest.scryptCpuCost();
+
+        // Then
+        assertThat(actual).isEqualTo(PasswordCostCalibrator.MIN_SCRYPT_CPU_COST << 1);
+    }
+
+    @Test
+    void fallsBackToCheapestCostOnSlowHardware() {
+        // Given
+        PasswordCostCalibrator underTest = new PasswordCostCalibrator(TARGET, doublingFrom(500));
+
+        // When
+        // Then
+        assertThat(underTest.bcryptStrength()).isEqualTo(PasswordCostCalibrator.MIN_BCRYPT_STRENGTH);
+        assertThat(underTest.argon2Iterations()).isEqualTo(1);
+    }
+
+    @Test
+    void capsCostOnFastHardware() {
+        // Given
+        PasswordCostCalibrator underTest = new PasswordCostCalibrator(TARGET, encoder -> 0L);
+
+        // When
+        // Then
+        assertThat(underTest.bcryptStrength()).isEqualTo(PasswordCostCalibrator.MAX_BCRYPT_STRENGTH);
+        assertThat(underTest.scryptCpuCost()).isEqualTo(PasswordCostCalibrator.MAX_SCRYPT_CPU_COST);
+        assertThat(underTest.argon2Iterations()).isEqualTo(PasswordCostCalibrator.MAX_ARGON2_ITERATIONS);
+    }
+
+    private static ToLongFunction<PasswordEncoder> doublingFrom(long millis) {
+        AtomicInteger calls = new AtomicInteger();
+        return encoder -> Duration.ofMillis(millis << calls.getAndIncrement()).toNanos();
+    }
+}
@@ -0,0 +1,89 @@
+package com.borjas.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordEncodersTest {
+
+    @Test
+    void newHashesCarryAlgorithmId() {
+        // Given
+        PasswordEncoder underTest = PasswordEncoders.delegating(
+                PasswordHashingAlgorithm.ARGON2, Duration.ZERO, 4, 1000
+        );
+
+        // When
+        String hash = underTest.encode("password");
+
+        // Then
+        assertThat(hash).startsWith("{argon2}");
+        assertThat(underTest.matches("password", hash)).isTrue();
+        assertThat(underTest.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    void verifiesHashesOfEverySupportedAlgorithm() {
+        // Given
+        PasswordEncoder underTest = PasswordEncoders.delegating(
+                PasswordHashingAlgorithm.BCRYPT, Duration.ZERO, 4, 1000
+        );
+
+        // When
+        // Then
+        for (PasswordHashingAlgorithm algorithm : PasswordHashingAlgorithm.values()) {
+            String hash = PasswordEncoders.delegating(algorithm, Duration.ZERO, 4, 1000).encode("password");
+            assertThat(underTest.matches("password", hash)).as(algorithm.getId()).isTrue();
+            assertThat(underTest.matches("wrong", hash)).as(algorithm.getId()).isFalse();
+        }
+    }
+
+    @Test
+    void legacyBcryptHashesVerifyAndGetRehashed() {
+        // Given
+        PasswordEncoder underTest = PasswordEncoders.delegating(
+                PasswordHashingAlgorithm.BCRYPT, Duration.ZERO, 4, 1000
+        );
+        String legacy = new BCryptPasswordEncoder(4).encode("password");
+
+        // When
+        // Then
+        assertThat(underTest.matches("password", legacy)).isTrue();
+        assertThat(underTest.upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    void hashesWithOtherAlgorithmOrCostGetRehashed() {
+        // Given
+        PasswordEncoder underTest = PasswordEncoders.delegating(
+                PasswordHashingAlgorithm.BCRYPT, Duration.ZERO, 5, 1000
+        );
+        String otherCost = PasswordEncoders.delegating(PasswordHashingAlgorithm.BCRYPT, Duration.ZERO, 4, 1000)
+                .encode("password");
+        String otherAlgorithm = PasswordEncoders.delegating(PasswordHashingAlgorithm.PBKDF2, Duration.ZERO, 4, 1000)
+                .encode("password");
+
+        // When
+        // Then
+        assertThat(underTest.upgradeEncoding(otherCost)).isTrue();
+        assertThat(underTest.upgradeEncoding(otherAlgorithm)).isTrue();
+    }
+
+    @Test
+    void calibrationNeverGoesBelowTheConfiguredStrength() {
+        // Given
+        PasswordEncoder underTest = PasswordEncoders.delegating(
+                PasswordHashingAlgorithm.BCRYPT, Duration.ofNanos(1), 5, 1000
+        );
+
+        // When
+        String hash = underTest.encode("password");
+
+        // Then
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+    }
+}